@@ -0,0 +1,132 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.HarmoniaApplication;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.service.ImportFormat;
+import com.harmonia.store.service.InstrumentImportService;
+import com.harmonia.store.service.StartupService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The application booted once per benchmark fork against an in-memory H2
+ * database and an embedded Redis server, with a generated catalog on top
+ * of the sample data.
+ */
+public final class BenchmarkApplication implements AutoCloseable {
+
+    private static final String[] BRANDS = {"Fender", "Gibson", "Yamaha", "Roland", "Ibanez", "Pearl", "Selmer",
+            "Steinway", "Martin", "Taylor", "Korg", "Casio", "Hohner", "Bach", "Buffet"};
+    private static final String[] MODELS = {"Stratocaster", "Les Paul", "Grand Piano", "Jazz Bass", "Studio",
+            "Custom", "Deluxe", "Classic", "Vintage", "Professional", "Standard", "Signature", "Concert"};
+
+    private final RedisServer redis;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(RedisServer redis, ConfigurableApplicationContext context) {
+        this.redis = redis;
+        this.context = context;
+    }
+
+    /**
+     * Start Redis and the application and import the given number of generated instruments
+     */
+    public static BenchmarkApplication start(int instruments) {
+        return start(instruments, WebApplicationType.NONE);
+    }
+
+    /**
+     * Same as start(int), also serving HTTP on a random port with the given profiles active
+     */
+    public static BenchmarkApplication startServer(int instruments, String... profiles) {
+        return start(instruments, WebApplicationType.SERVLET, profiles);
+    }
+
+    private static BenchmarkApplication start(int instruments, WebApplicationType web, String... profiles) {
+        try {
+            int port = freePort();
+            RedisServer redis = new RedisServer(port);
+            redis.start();
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(HarmoniaApplication.class)
+                    .web(web)
+                    .profiles(profiles)
+                    // Arguments rather than default properties, which application.yml would override.
+                    // H2 would otherwise answer a repeated query from its previous result.
+                    .run("--spring.main.banner-mode=off",
+                            "--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";OPTIMIZE_REUSE_RESULTS=FALSE",
+                            "--spring.data.redis.port=" + port,
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.harmonia.store=WARN");
+            BenchmarkApplication application = new BenchmarkApplication(redis, context);
+            // Sample data and index builds run in the background, the import must come after them
+            if (!application.getBean(StartupService.class).awaitFinished(Duration.ofMinutes(5))) {
+                throw new IllegalStateException("Application did not finish starting");
+            }
+            application.importInstruments(instruments);
+            return application;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Port the embedded web server listens on, when started with startServer
+     */
+    public int serverPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        redis.stop();
+    }
+
+    private void importInstruments(int count) {
+        Random random = new Random(42);
+        InstrumentType[] types = InstrumentType.values();
+        StringBuilder csv = new StringBuilder("name,brand,price,type,condition,stockQuantity,description\n");
+        for (int i = 0; i < count; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String model = MODELS[random.nextInt(MODELS.length)];
+            csv.append(model).append(' ').append(i).append(',')
+                    .append(brand).append(',')
+                    .append(50 + random.nextInt(10_000)).append(".99,")
+                    .append(types[random.nextInt(types.length)]).append(",NEW,")
+                    .append(random.nextInt(20)).append(',')
+                    .append(brand).append(' ').append(model).append(" in excellent shape\n");
+        }
+        getBean(InstrumentImportService.class).importInstruments(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached, fully populated model objects for serialization benchmarks
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Instrument> instruments(int count) {
+        Category category = new Category("Guitars", "String instruments");
+        category.setId(1L);
+        List<Instrument> instruments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Instrument instrument = new Instrument("Stratocaster " + i, "Fender", new BigDecimal("1299.99"),
+                    InstrumentType.GUITAR, Condition.NEW);
+            instrument.setId((long) i + 1);
+            instrument.setDescription("Classic electric guitar with maple neck and three single-coil pickups");
+            instrument.setStockQuantity(5);
+            instrument.setCategory(category);
+            instrument.setCreatedAt(LocalDateTime.now());
+            instrument.setUpdatedAt(LocalDateTime.now());
+            instruments.add(instrument);
+        }
+        return instruments;
+    }
+
+    static Customer customer() {
+        Customer customer = new Customer("John", "Smith", "john.smith@email.com");
+        customer.setId(1L);
+        customer.setPhone("+34603486484");
+        customer.setAddress("Street 79, New York");
+        customer.setTotalPurchases(new BigDecimal("3316.87"));
+        customer.setLoyaltyPoints(1164);
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setUpdatedAt(LocalDateTime.now());
+        return customer;
+    }
+}
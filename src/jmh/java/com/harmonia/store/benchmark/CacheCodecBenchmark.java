@@ -0,0 +1,67 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.config.CacheConfig;
+import com.harmonia.store.config.RedisCacheProperties;
+import com.harmonia.store.dto.InstrumentSummary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Redis cache value codecs: encode and decode time per entry for the JSON
+ * serializer and the binary codec with and without compression. The
+ * encoded size of each payload is printed once per trial as
+ * "bytes per entry".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({"json", "binary", "binary-lz4"})
+    private String codec;
+
+    // Single instrument by ID, a 100 row list, or a customer entity
+    @Param({"summary", "summaries", "customer"})
+    private String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisCacheProperties.Spec spec = new RedisCacheProperties.Spec();
+        spec.setCodec(codec.equals("json") ? RedisCacheProperties.Codec.JSON : RedisCacheProperties.Codec.BINARY);
+        spec.setCompressionThreshold(codec.equals("binary-lz4") ? 512 : 0);
+        serializer = CacheConfig.valueSerializer(spec);
+
+        List<InstrumentSummary> summaries = BenchmarkFixtures.instruments(100).stream()
+                .map(InstrumentSummary::from)
+                .collect(Collectors.toCollection(ArrayList::new));
+        value = switch (payload) {
+            case "summary" -> summaries.get(0);
+            case "summaries" -> summaries;
+            default -> BenchmarkFixtures.customer();
+        };
+        encoded = serializer.serialize(value);
+        System.out.printf("%n%s %s: %d bytes per entry%n", codec, payload, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,192 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.service.InstrumentCatalog;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP load test of the read endpoints with a large number of concurrent
+ * connections, once with request handling on platform threads and once with
+ * the virtual-threads profile. Each connection is a client sending requests
+ * back to back; throughput and latency percentiles are reported per mode.
+ *
+ * Options are key=value arguments:
+ *   connections  concurrent connections (10000)
+ *   warmup       seconds before measuring, includes JIT warm-up (30)
+ *   duration     measured seconds (30)
+ *   instruments  generated catalog size (10000)
+ *   modes        comma separated, platform and/or virtual (platform,virtual)
+ *
+ * Client and server share the JVM and machine, so absolute numbers are only
+ * comparable between modes of the same run. Running 10000 connections needs
+ * about twice as many open files (ulimit -n).
+ */
+public final class ConcurrentLoadTest {
+
+    private static final String[] QUERIES = {"fender", "piano", "bass", "vintage", "studio"};
+
+    private ConcurrentLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        int connections = Integer.parseInt(options.getOrDefault("connections", "10000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "30")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int instruments = Integer.parseInt(options.getOrDefault("instruments", "10000"));
+
+        List<String> report = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            String[] profiles = mode.equals("virtual") ? new String[]{"virtual-threads"} : new String[0];
+            try (BenchmarkApplication application = BenchmarkApplication.startServer(instruments, profiles)) {
+                application.getBean(InstrumentCatalog.class).refresh();
+                URI base = URI.create("http://localhost:" + application.serverPort() + "/api/v1/instruments");
+                Result result = run(base, instruments, connections, warmup, duration);
+                report.add(String.format("%-10s %11d %12.0f %9.1f %9.1f %9.1f %8d", mode, connections,
+                        result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                        result.percentile(0.999), result.errors()));
+            }
+        }
+        System.out.printf("%n%-10s %11s %12s %9s %9s %9s %8s%n",
+                "mode", "connections", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static Result run(URI base, int instruments, int connections, Duration warmup, Duration duration)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        List<Client> clients = new ArrayList<>(connections);
+        // The client's own executor must outlive the request loops
+        try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .executor(httpExecutor)
+                     .build();
+             ExecutorService loops = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                Client client = new Client(http, base, instruments, i, measureFrom, measureUntil);
+                clients.add(client);
+                loops.execute(client);
+            }
+            loops.shutdown();
+            loops.awaitTermination(warmup.plus(duration).toSeconds() + 120, TimeUnit.SECONDS);
+            http.shutdownNow();
+        }
+
+        int total = clients.stream().mapToInt(client -> client.count).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        long errors = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+            errors += client.errors;
+        }
+        Arrays.sort(latencies);
+        return new Result(total / (double) duration.toSeconds(), latencies, errors);
+    }
+
+    /**
+     * One connection's request loop, recording the latency of the requests
+     * started inside the measurement window
+     */
+    private static final class Client implements Runnable {
+
+        private final HttpClient http;
+        private final URI base;
+        private final int instruments;
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long measureUntil;
+        private long[] latencies = new long[64];
+        private int count;
+        private long errors;
+
+        Client(HttpClient http, URI base, int instruments, long seed, long measureFrom, long measureUntil) {
+            this.http = http;
+            this.base = base;
+            this.instruments = instruments;
+            this.random = new SplittableRandom(seed);
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            long start;
+            while ((start = System.nanoTime()) < measureUntil) {
+                boolean ok;
+                try {
+                    HttpResponse<Void> response = http.send(nextRequest(), HttpResponse.BodyHandlers.discarding());
+                    ok = response.statusCode() < 400;
+                } catch (IOException e) {
+                    ok = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (start >= measureFrom) {
+                    if (!ok) {
+                        errors++;
+                    } else {
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                }
+            }
+        }
+
+        // Mostly cached single reads, some searches, snapshot and page queries
+        private HttpRequest nextRequest() {
+            int pick = random.nextInt(100);
+            String path;
+            if (pick < 60) {
+                path = "/" + (1 + random.nextInt(instruments));
+            } else if (pick < 80) {
+                path = "/search?name=" + QUERIES[random.nextInt(QUERIES.length)];
+            } else if (pick < 90) {
+                int min = 50 + random.nextInt(9_900);
+                path = "/price-range?minPrice=" + min + "&maxPrice=" + (min + 10);
+            } else {
+                path = "/paginated?page=" + random.nextInt(50) + "&size=20";
+            }
+            return HttpRequest.newBuilder(base.resolve(base.getPath() + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+        }
+    }
+
+    private record Result(double throughput, long[] sortedLatencies, long errors) {
+
+        double percentile(double fraction) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
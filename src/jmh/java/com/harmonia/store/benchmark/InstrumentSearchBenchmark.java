@@ -0,0 +1,65 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.cache.SearchResultCache;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.InstrumentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InstrumentService.searchByName: served from the search result cache,
+ * through the trigram index, and the LIKE query it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentSearchBenchmark {
+
+    @Param({"10000"})
+    private int instruments;
+
+    @Param({"fender", "grand piano", "strat"})
+    private String term;
+
+    private BenchmarkApplication application;
+    private InstrumentService instrumentService;
+    private InstrumentRepository instrumentRepository;
+    private SearchResultCache<?> searchCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(instruments);
+        instrumentService = application.getBean(InstrumentService.class);
+        instrumentRepository = application.getBean(InstrumentRepository.class);
+        searchCache = application.getBean(SearchResultCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public List<InstrumentSummary> cachedSearch() {
+        return instrumentService.searchByName(term);
+    }
+
+    @Benchmark
+    public List<InstrumentSummary> indexSearch() {
+        searchCache.invalidateAll();
+        return instrumentService.searchByName(term);
+    }
+
+    @Benchmark
+    public List<Instrument> likeQuery() {
+        return instrumentRepository.findByNameContainingIgnoreCase(term);
+    }
+}
@@ -0,0 +1,67 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.config.HttpCachingProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second of GET /api/v1/instruments/ over HTTP, with the list
+ * served from the response body cache (responseCache=true) and serialized
+ * by Jackson on every request as before (false), with and without gzip.
+ * Conditional requests are not sent, so every request gets the full body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class ListResponseBenchmark {
+
+    @Param({"1000"})
+    private int instruments;
+
+    @Param({"true", "false"})
+    private boolean responseCache;
+
+    @Param({"identity", "gzip"})
+    private String acceptEncoding;
+
+    private BenchmarkApplication application;
+    private HttpClient http;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.startServer(instruments);
+        application.getBean(HttpCachingProperties.class).getResponseCache().setEnabled(responseCache);
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + application.serverPort() + "/api/v1/instruments/"))
+                .header("Accept-Encoding", acceptEncoding)
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        http.close();
+        application.close();
+    }
+
+    @Benchmark
+    public byte[] listInstruments() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,73 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.service.InstrumentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of instruments sorted by name, with OFFSET pagination against
+ * keyset (cursor) pagination. The cursor for the measured page is found
+ * once by walking the pages before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private static final String SORT = "name";
+
+    @Param({"20000"})
+    private int instruments;
+
+    @Param({"10"})
+    private int size;
+
+    // Zero-based, page 1000 starts at row 10000 with the default size
+    @Param({"1", "1000"})
+    private int page;
+
+    private BenchmarkApplication application;
+    private InstrumentService instrumentService;
+    private Pageable pageable;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(instruments);
+        instrumentService = application.getBean(InstrumentService.class);
+        pageable = PageRequest.of(page, size, Sort.by(SORT));
+        for (int i = 0; i < page; i++) {
+            cursor = instrumentService.getInstrumentsByCursor(SORT, Sort.Direction.ASC, size, cursor).nextCursor();
+        }
+        // Both paths must return the same rows, or the comparison is meaningless
+        if (!offset().getContent().equals(cursor().content())) {
+            throw new IllegalStateException("Offset and cursor pages differ");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Page<InstrumentSummary> offset() {
+        return instrumentService.getInstrumentsPaginated(pageable);
+    }
+
+    @Benchmark
+    public CursorPage<InstrumentSummary> cursor() {
+        return instrumentService.getInstrumentsByCursor(SORT, Sort.Direction.ASC, size, cursor);
+    }
+}
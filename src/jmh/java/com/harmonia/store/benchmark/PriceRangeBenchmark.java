@@ -0,0 +1,65 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.InstrumentCatalog;
+import com.harmonia.store.service.InstrumentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InstrumentService.getInstrumentsByPriceRange from the columnar catalog
+ * snapshot against the database query it replaces
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceRangeBenchmark {
+
+    @Param({"10000"})
+    private int instruments;
+
+    // "min_max"
+    @Param({"500_600", "1000_5000"})
+    private String range;
+
+    private BenchmarkApplication application;
+    private InstrumentService instrumentService;
+    private InstrumentRepository instrumentRepository;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = BenchmarkApplication.start(instruments);
+        instrumentService = application.getBean(InstrumentService.class);
+        instrumentRepository = application.getBean(InstrumentRepository.class);
+        // Include the imported rows without waiting for the scheduled refresh
+        application.getBean(InstrumentCatalog.class).refresh();
+        String[] bounds = range.split("_");
+        minPrice = new BigDecimal(bounds[0]);
+        maxPrice = new BigDecimal(bounds[1]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public List<InstrumentSummary> snapshot() {
+        return instrumentService.getInstrumentsByPriceRange(minPrice, maxPrice);
+    }
+
+    @Benchmark
+    public List<InstrumentSummary> database() {
+        return instrumentRepository.findSummariesByPriceBetween(minPrice, maxPrice);
+    }
+}
@@ -0,0 +1,61 @@
+package com.harmonia.store.benchmark;
+
+import com.harmonia.store.model.Instrument;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cache value path of CacheConfig: a local (L1) hit against a full
+ * serialize → Redis → deserialize round trip through the embedded server,
+ * using detached instruments so only the cache path is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCacheBenchmark {
+
+    private static final String KEY = "benchmark:instruments";
+
+    @Param({"1", "100"})
+    private int listSize;
+
+    private BenchmarkApplication application;
+    private RedisTemplate<String, Object> redisTemplate;
+    private Cache cache;
+    private List<Instrument> instruments;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        application = BenchmarkApplication.start(0);
+        redisTemplate = application.getBean("redisTemplate", RedisTemplate.class);
+        cache = application.getBean(CacheManager.class).getCache("instruments");
+        instruments = BenchmarkFixtures.instruments(listSize);
+        cache.put(KEY, instruments);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Object localHit() {
+        return cache.get(KEY).get();
+    }
+
+    @Benchmark
+    public Object redisRoundTrip() {
+        redisTemplate.opsForValue().set(KEY, instruments);
+        return redisTemplate.opsForValue().get(KEY);
+    }
+}
@@ -0,0 +1,97 @@
+package com.harmonia.store.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harmonia.store.config.CacheConfig;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.Instrument;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of instruments and customers as done for HTTP
+ * responses, and the Redis value serializer configured in CacheConfig.
+ * No application context is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    // Size of the cached 'all' / type lists
+    @Param({"100"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private GenericJackson2JsonRedisSerializer redisSerializer;
+    private Instrument instrument;
+    private Customer customer;
+    private List<Instrument> instruments;
+    private byte[] instrumentJson;
+    private byte[] customerJson;
+    private byte[] redisInstrument;
+    private byte[] redisInstruments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Same defaults as the Spring Boot auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        redisSerializer = CacheConfig.jsonRedisSerializer();
+
+        instruments = BenchmarkFixtures.instruments(listSize);
+        instrument = instruments.get(0);
+        customer = BenchmarkFixtures.customer();
+
+        instrumentJson = objectMapper.writeValueAsBytes(instrument);
+        customerJson = objectMapper.writeValueAsBytes(customer);
+        redisInstrument = redisSerializer.serialize(instrument);
+        redisInstruments = redisSerializer.serialize(instruments);
+    }
+
+    @Benchmark
+    public byte[] jacksonWriteInstrument() throws IOException {
+        return objectMapper.writeValueAsBytes(instrument);
+    }
+
+    @Benchmark
+    public Instrument jacksonReadInstrument() throws IOException {
+        return objectMapper.readValue(instrumentJson, Instrument.class);
+    }
+
+    @Benchmark
+    public byte[] jacksonWriteCustomer() throws IOException {
+        return objectMapper.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public Customer jacksonReadCustomer() throws IOException {
+        return objectMapper.readValue(customerJson, Customer.class);
+    }
+
+    @Benchmark
+    public byte[] redisSerializeInstrument() {
+        return redisSerializer.serialize(instrument);
+    }
+
+    @Benchmark
+    public Object redisDeserializeInstrument() {
+        return redisSerializer.deserialize(redisInstrument);
+    }
+
+    @Benchmark
+    public byte[] redisSerializeInstrumentList() {
+        return redisSerializer.serialize(instruments);
+    }
+
+    @Benchmark
+    public Object redisDeserializeInstrumentList() {
+        return redisSerializer.deserialize(redisInstruments);
+    }
+}
@@ -0,0 +1,203 @@
+package com.harmonia.store.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding for cached values of known types.
+ *
+ * Values are written with Jackson Smile as positional arrays, so neither
+ * class nor property names are stored. Every entry starts with a header:
+ *
+ *   magic (1) | flags (1) | schema fingerprint (4) | [raw length (4)] | body
+ *
+ * The fingerprint identifies the registered type and changes whenever its
+ * fields do, so entries written by an older schema (or by another codec)
+ * read as a miss instead of failing. Lists of one registered type are
+ * supported, bodies of at least compressionThreshold bytes are LZ4
+ * compressed and values of any other type go to the fallback serializer.
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final int FLAG_LIST = 1;
+    private static final int FLAG_COMPRESSED = 2;
+    private static final int FLAG_FALLBACK = 4;
+    private static final int HEADER_SIZE = 6;
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, Integer> fingerprints = new HashMap<>();
+    private final Map<Integer, JavaType> valueTypes = new HashMap<>();
+    private final Map<Integer, JavaType> listTypes = new HashMap<>();
+    private final int compressionThreshold;
+    private final RedisSerializer<Object> fallback;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    /**
+     * @param types                types encoded in binary, identified by their schema fingerprint
+     * @param compressionThreshold bodies at least this large are compressed, 0 disables compression
+     * @param fallback             serializer for values of any other type
+     */
+    public BinaryRedisSerializer(Collection<Class<?>> types, int compressionThreshold,
+                                 RedisSerializer<Object> fallback) {
+        this.compressionThreshold = compressionThreshold;
+        this.fallback = fallback;
+        // Fields only: derived getters (isInStock, getFullName) are not part of the schema
+        SmileMapper smileMapper = SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                .visibility(PropertyAccessor.GETTER, Visibility.NONE)
+                .visibility(PropertyAccessor.IS_GETTER, Visibility.NONE)
+                .visibility(PropertyAccessor.SETTER, Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+                .build();
+        for (Class<?> type : types) {
+            smileMapper.configOverride(type).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.ARRAY));
+            int fingerprint = fingerprint(type);
+            if (fingerprint == 0 || valueTypes.containsKey(fingerprint)) {
+                throw new IllegalArgumentException("Schema fingerprint collision for " + type.getName());
+            }
+            fingerprints.put(type, fingerprint);
+            valueTypes.put(fingerprint, smileMapper.constructType(type));
+            listTypes.put(fingerprint, smileMapper.getTypeFactory().constructCollectionType(List.class, type));
+        }
+        this.mapper = smileMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        int flags = 0;
+        Integer fingerprint;
+        JavaType type;
+        if (value instanceof List<?> list) {
+            flags |= FLAG_LIST;
+            if (list.isEmpty()) {
+                return header(flags, 0, 0).array();
+            }
+            Class<?> elementType = list.get(0) != null ? list.get(0).getClass() : null;
+            fingerprint = fingerprints.get(elementType);
+            if (fingerprint != null && !list.stream().allMatch(element -> element != null
+                    && element.getClass() == elementType)) {
+                fingerprint = null;
+            }
+            type = fingerprint != null ? listTypes.get(fingerprint) : null;
+        } else {
+            fingerprint = fingerprints.get(value.getClass());
+            type = fingerprint != null ? valueTypes.get(fingerprint) : null;
+        }
+        if (fingerprint == null) {
+            byte[] body = fallback.serialize(value);
+            return header(FLAG_FALLBACK, 0, body.length).put(body).array();
+        }
+
+        byte[] body;
+        try {
+            body = mapper.writerFor(type).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write binary cache value", e);
+        }
+        if (compressionThreshold > 0 && body.length >= compressionThreshold) {
+            byte[] compressed = new byte[compressor.maxCompressedLength(body.length)];
+            int length = compressor.compress(body, 0, body.length, compressed, 0);
+            // Keep the raw body when compression does not pay for the length field
+            if (length + Integer.BYTES < body.length) {
+                return header(flags | FLAG_COMPRESSED, fingerprint, Integer.BYTES + length)
+                        .putInt(body.length)
+                        .put(compressed, 0, length)
+                        .array();
+            }
+        }
+        return header(flags, fingerprint, body.length).put(body).array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < HEADER_SIZE || bytes[0] != MAGIC) {
+            // Written by another codec, treated as a miss
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(1);
+        int flags = buffer.get();
+        int fingerprint = buffer.getInt();
+        if ((flags & FLAG_FALLBACK) != 0) {
+            byte[] body = new byte[buffer.remaining()];
+            buffer.get(body);
+            return fallback.deserialize(body);
+        }
+        boolean list = (flags & FLAG_LIST) != 0;
+        if (list && fingerprint == 0) {
+            return new ArrayList<>();
+        }
+        JavaType type = list ? listTypes.get(fingerprint) : valueTypes.get(fingerprint);
+        if (type == null) {
+            // Unknown or changed schema, treated as a miss
+            return null;
+        }
+        try {
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                int rawLength = buffer.getInt();
+                byte[] body = new byte[rawLength];
+                decompressor.decompress(bytes, buffer.position(), body, 0, rawLength);
+                return mapper.readValue(body, type);
+            }
+            return mapper.readValue(bytes, buffer.position(), buffer.remaining(), type);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not read binary cache value", e);
+        }
+    }
+
+    private static ByteBuffer header(int flags, int fingerprint, int bodyLength) {
+        return ByteBuffer.allocate(HEADER_SIZE + bodyLength)
+                .put(MAGIC)
+                .put((byte) flags)
+                .putInt(fingerprint);
+    }
+
+    /**
+     * CRC32 over the class name and the name and type of every instance
+     * field, in declaration order
+     */
+    static int fingerprint(Class<?> type) {
+        CRC32 crc = new CRC32();
+        StringBuilder schema = new StringBuilder(type.getName());
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    schema.append(';').append(field.getName()).append(':').append(field.getGenericType().getTypeName());
+                }
+            }
+        }
+        crc.update(schema.toString().getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+}
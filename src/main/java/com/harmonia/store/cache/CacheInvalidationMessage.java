@@ -0,0 +1,9 @@
+package com.harmonia.store.cache;
+
+/**
+ * Message broadcast over Redis pub/sub as JSON when a node changes a cache
+ * entry. The key is a Long ID or a string, a null key means the whole cache
+ * was cleared.
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, Object key) {
+}
@@ -0,0 +1,39 @@
+package com.harmonia.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the L1 invalidation subscription outside of context startup, so
+ * the application boots without Redis, and keeps retrying until Redis is
+ * reachable. Until then, peers' changes reach this node's L1 only through
+ * its TTL.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationSubscriber {
+
+    @Autowired
+    private RedisMessageListenerContainer cacheInvalidationListenerContainer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.cache.redis.circuit-breaker.open-duration:PT10S}")
+    public void subscribe() {
+        if (cacheInvalidationListenerContainer.isRunning()) {
+            return;
+        }
+        try {
+            cacheInvalidationListenerContainer.start();
+            log.info("Subscribed to L1 cache invalidations");
+        } catch (RuntimeException e) {
+            // Reset the container so the next attempt subscribes again
+            cacheInvalidationListenerContainer.stop();
+            log.warn("Could not subscribe to L1 cache invalidations, retrying: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.harmonia.store.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Evicts individual cache entries so that a write only drops the entries
+ * that can actually contain the changed data.
+ */
+@Component
+public class CacheInvalidator {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Evict the given keys
+     */
+    public void evict(String cacheName, Collection<?> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (Object key : keys) {
+            cache.evict(key);
+        }
+    }
+
+    /**
+     * Drop every entry of a cache, for bulk writes
+     */
+    public void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Run the callback with the evicted key (null for a clear) whenever
+     * another node invalidates an entry of the given cache
+     */
+    public void onRemoteInvalidation(String cacheName, Consumer<Object> callback) {
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            twoLevelCacheManager.addRemoteInvalidationListener((name, key) -> {
+                if (name.equals(cacheName)) {
+                    callback.accept(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Run the callback with the evicted key (null for a clear) after every
+     * committed invalidation of the given cache, on this node or another
+     */
+    public void onInvalidation(String cacheName, Consumer<Object> callback) {
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            twoLevelCacheManager.addInvalidationListener((name, key) -> {
+                if (name.equals(cacheName)) {
+                    callback.accept(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hit/miss/eviction counters of every cache created so far
+     */
+    public List<CacheStatistics> statistics() {
+        List<CacheStatistics> statistics = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof TwoLevelCache cache) {
+                statistics.add(cache.getStatistics());
+            }
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,20 @@
+package com.harmonia.store.cache;
+
+/**
+ * Point-in-time counters of a TwoLevelCache
+ */
+public record CacheStatistics(String cacheName,
+                              long localHits,
+                              long remoteHits,
+                              long misses,
+                              long puts,
+                              long evictions,
+                              long earlyRefreshes,
+                              long localSize) {
+
+    public double hitRatio() {
+        long hits = localHits + remoteHits;
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
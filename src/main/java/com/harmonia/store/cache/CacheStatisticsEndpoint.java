@@ -0,0 +1,24 @@
+package com.harmonia.store.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Exposes per-cache hit/miss/eviction counters at /actuator/cachestats
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatisticsEndpoint {
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @ReadOperation
+    public List<CacheStatistics> cacheStatistics() {
+        return cacheInvalidator.statistics();
+    }
+}
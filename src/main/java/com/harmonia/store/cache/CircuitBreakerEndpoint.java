@@ -0,0 +1,22 @@
+package com.harmonia.store.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the Redis circuit breaker state and bypass counts at /actuator/cachebreaker
+ */
+@Component
+@Endpoint(id = "cachebreaker")
+public class CircuitBreakerEndpoint {
+
+    @Autowired
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @ReadOperation
+    public CircuitBreakerStatistics circuitBreaker() {
+        return redisCircuitBreaker.getStatistics();
+    }
+}
@@ -0,0 +1,20 @@
+package com.harmonia.store.cache;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time state and counters of the Redis circuit breaker
+ *
+ * @param calls    calls that reached Redis
+ * @param bypassed calls answered by their fallback without reaching Redis
+ * @param trips    times the breaker opened
+ */
+public record CircuitBreakerStatistics(RedisCircuitBreaker.State state,
+                                       Instant since,
+                                       int consecutiveFailures,
+                                       long calls,
+                                       long failures,
+                                       long bypassed,
+                                       long trips,
+                                       String lastFailure) {
+}
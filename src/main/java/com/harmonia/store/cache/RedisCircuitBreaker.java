@@ -0,0 +1,171 @@
+package com.harmonia.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for calls to Redis.
+ *
+ * After failureThreshold consecutive failures or slow calls the breaker
+ * opens and calls go straight to their fallback without touching Redis.
+ * Once openDuration has passed a single call is let through as a probe. It
+ * first runs the recovery listeners, so whatever went stale during the
+ * outage is cleared before anything is read from Redis again, then makes
+ * its own call: success closes the breaker, failure of either keeps it open
+ * for another openDuration. The first successful call after failures that
+ * did not open the breaker notifies the recovery listeners too.
+ */
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long openedAt;
+    private volatile Instant lastStateChange = Instant.now();
+    private volatile String lastFailure;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    public RedisCircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Run the call if the breaker allows it, otherwise or when it fails
+     * return the fallback's result. Call failures are not rethrown.
+     */
+    public <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        State acquired = tryAcquire();
+        if (acquired == null) {
+            bypassed.increment();
+            return fallback.get();
+        }
+        calls.increment();
+        long start;
+        T result;
+        try {
+            if (acquired == State.HALF_OPEN) {
+                recoveryListeners.forEach(Runnable::run);
+            }
+            start = System.nanoTime();
+            result = call.get();
+        } catch (RuntimeException e) {
+            onFailure(e.getClass().getSimpleName() + ": " + e.getMessage());
+            return fallback.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > slowCallNanos) {
+            onFailure("Slow call: " + Duration.ofNanos(elapsed).toMillis() + "ms");
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    /**
+     * Register a callback run by the probe before its own call, and by the
+     * first successful call after failures. It must call Redis directly, not
+     * through this breaker, and throw if Redis fails so the breaker stays
+     * open.
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public CircuitBreakerStatistics getStatistics() {
+        return new CircuitBreakerStatistics(state.get(), lastStateChange, consecutiveFailures.get(),
+                calls.sum(), failures.sum(), bypassed.sum(), trips.sum(), lastFailure);
+    }
+
+    /**
+     * CLOSED for a normal call, HALF_OPEN for the probe, null if the call
+     * must not touch Redis
+     */
+    private State tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return State.CLOSED;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos && probing.compareAndSet(false, true)) {
+            transition(State.HALF_OPEN);
+            return State.HALF_OPEN;
+        }
+        return null;
+    }
+
+    private void onSuccess() {
+        boolean afterFailure = consecutiveFailures.get() > 0 && consecutiveFailures.getAndSet(0) > 0;
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            lastStateChange = Instant.now();
+            probing.set(false);
+            log.info("Redis is reachable again, cache circuit breaker closed");
+            // Again for writes skipped while the probe ran
+            afterFailure = true;
+        }
+        if (afterFailure) {
+            for (Runnable listener : recoveryListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.warn("Cache circuit breaker recovery listener failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void onFailure(String reason) {
+        failures.increment();
+        lastFailure = reason;
+        if (state.get() == State.HALF_OPEN) {
+            open();
+            probing.set(false);
+            log.debug("Redis probe failed, cache circuit breaker stays open: {}", reason);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (!state.compareAndSet(State.CLOSED, State.OPEN)) {
+                return;
+            }
+            lastStateChange = Instant.now();
+            trips.increment();
+            log.warn("Cache circuit breaker opened after {} consecutive Redis failures, bypassing Redis: {}",
+                    consecutiveFailures.get(), reason);
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state.getAndSet(next) != next) {
+            lastStateChange = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.harmonia.store.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.harmonia.store.config.HttpCachingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Final JSON bytes of list responses, with a gzip compressed copy, so that
+ * a repeated request neither reads the list from the cache nor serializes
+ * it again.
+ *
+ * Each body is stored with the version it was built for and is only reused
+ * while the caller passes the same version, e.g. a CatalogVersions stamp
+ * taken before loading. The writes that evict the data change the version,
+ * so the next request rebuilds the body. Concurrent rebuilds of the same
+ * key and version share one serialization, which runs outside the cache's
+ * locks. Stored arrays are never modified and are
+ * handed to the response as they are. Bodies also expire after a fixed
+ * time, which bounds how long one built from data a write missed is served.
+ *
+ * Responses carry no Vary header, ConditionalGetInterceptor sets
+ * Vary: Accept-Encoding on the catalog endpoints that use this cache.
+ */
+public class ResponseBodyCache implements MeterBinder {
+
+    private final ObjectMapper objectMapper;
+    private final HttpCachingProperties.ResponseCache properties;
+    private final Cache<String, Body> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ConcurrentMap<PendingBuild, CompletableFuture<Body>> building = new ConcurrentHashMap<>();
+
+    public ResponseBodyCache(ObjectMapper objectMapper, HttpCachingProperties.ResponseCache properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((String key, Body body) -> body.size())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    /**
+     * JSON response with the body for the given version, built from the
+     * loader's value if the cached one is missing or older. Gzip compressed
+     * when the Accept-Encoding header allows it and the body is large enough.
+     */
+    public ResponseEntity<byte[]> get(String key, String version, String acceptEncoding, Supplier<?> loader) {
+        Body body;
+        if (!properties.isEnabled()) {
+            body = build(version, loader.get());
+        } else {
+            body = cache.getIfPresent(key);
+            if (body != null && body.version().equals(version)) {
+                hits.increment();
+            } else {
+                body = buildOnce(key, version, loader);
+            }
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Build and store the body of a key and version, outside any cache lock
+     * as the loader may query the database. Concurrent callers for the same
+     * key and version wait for the first one's body.
+     */
+    private Body buildOnce(String key, String version, Supplier<?> loader) {
+        PendingBuild build = new PendingBuild(key, version);
+        CompletableFuture<Body> pending = new CompletableFuture<>();
+        CompletableFuture<Body> existing = building.putIfAbsent(build, pending);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // Stored by a build that finished since the caller's lookup
+            Body body = cache.getIfPresent(key);
+            if (body == null || !body.version().equals(version)) {
+                misses.increment();
+                body = build(version, loader.get());
+                cache.put(key, body);
+            }
+            pending.complete(body);
+            return body;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(build, pending);
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header value allows gzip
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        // An explicit gzip entry wins over "*", wherever either appears
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equals("gzip")) {
+                gzip = quality(parts);
+            } else if (name.equals("*")) {
+                any = quality(parts);
+            }
+        }
+        Double quality = gzip != null ? gzip : any;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * The q parameter of one coding, 1 without it and 0 if malformed
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].replace(" ", "");
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private Body build(String version, Object value) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response body", e);
+        }
+        byte[] gzip = null;
+        if (json.length >= properties.getCompressionThreshold().toBytes()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Only worth sending if it saves something
+            if (compressed.size() < json.length) {
+                gzip = compressed.toByteArray();
+            }
+        }
+        return new Body(version, json, gzip);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("http.response.cache.gets", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("http.response.cache.gets", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("http.response.cache.size", cache,
+                        c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes").register(registry);
+    }
+
+    private record PendingBuild(String key, String version) {
+    }
+
+    private record Body(String version, byte[] json, byte[] gzip) {
+
+        int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.harmonia.store.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, thread-safe cache of search results keyed by normalized query.
+ * Entries are weighted by result size and evicted by Caffeine's
+ * frequency/recency (W-TinyLFU) policy. Concurrent lookups of the same
+ * query share a single load.
+ */
+public class SearchResultCache<T> {
+
+    private final AsyncCache<String, List<T>> cache;
+
+    public SearchResultCache(long maximumWeight, Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String query, List<T> results) -> results.size() + 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Case-folded, trimmed form of a query used as cache key
+     */
+    public static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cached results for the query, loading them on the caller's thread if
+     * absent. Other threads asking for the same query wait for that load.
+     */
+    public List<T> get(String query, Function<String, List<T>> loader) {
+        String key = normalize(query);
+        CompletableFuture<List<T>> pending = new CompletableFuture<>();
+        CompletableFuture<List<T>> existing = cache.asMap().putIfAbsent(key, pending);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            List<T> results = List.copyOf(loader.apply(key));
+            pending.complete(results);
+            return results;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the entries whose normalized query matches
+     */
+    public void invalidateIf(Predicate<String> queryMatches) {
+        cache.asMap().keySet().removeIf(queryMatches);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+}
@@ -0,0 +1,522 @@
+package com.harmonia.store.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache that serves reads from an in-heap Caffeine cache (L1) and falls back
+ * to the shared Redis cache (L2). Writes go to both levels and are broadcast
+ * so other nodes drop their L1 copy. Redis calls go through the manager's
+ * circuit breaker, so an unavailable L2 behaves like an empty one.
+ *
+ * Loads through get(key, loader) are single-flight: concurrent callers on
+ * this node wait for one load, and a Redis lease lets one node load while
+ * the others wait for its value. Entries are refreshed early with
+ * probability growing as their Redis TTL runs out (XFetch), so a hot key is
+ * reloaded by one caller while the others keep reading the current value
+ * instead of all missing at once when it expires.
+ *
+ * Reads of ID (Long) keys are recorded, see TwoLevelCacheManager.flushRecentKeys,
+ * so the next node to start can preload what is currently hot.
+ *
+ * L1 never hands out an object a caller could change for everyone else:
+ * immutable values (records of immutable types, strings, numbers, ...) are
+ * shared, lists of them are kept as unmodifiable copies, and anything else,
+ * such as entities, is kept serialized and decoded on every L1 hit.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final TwoLevelCacheManager manager;
+
+    // Codec of the Redis values, also used for mutable values in L1; null without Redis
+    private final RedisSerializationContext.SerializationPair<Object> valueSerialization;
+    private final RedisCacheConfiguration remoteConfiguration;
+
+    // How RedisCache stores a cached null
+    private static final byte[] BINARY_NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    // Redis TTL of the entries, with the load time it is the input of the early refresh decision
+    private final Duration remoteTtl;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, EntryTiming> timings;
+    private volatile long averageLoadNanos;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    // Redis read and loader latency, null until bound to a registry
+    private volatile Timer remoteReadTimer;
+    private volatile Timer loadTimer;
+
+    // ID keys read since the last flush with the time of their latest read, null when not recorded
+    private final com.github.benmanes.caffeine.cache.Cache<Long, Long> recentKeys;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                         Cache remote, Duration remoteTtl, TwoLevelCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.remoteTtl = remoteTtl;
+        this.manager = manager;
+        this.remoteConfiguration = remote instanceof RedisCache redisCache ? redisCache.getCacheConfiguration() : null;
+        this.valueSerialization = remoteConfiguration != null ? remoteConfiguration.getValueSerializationPair() : null;
+        this.timings = Caffeine.newBuilder()
+                .maximumSize(local.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(10_000L))
+                .expireAfterWrite(remoteTtl.isZero() ? Duration.ofDays(1) : remoteTtl)
+                .build();
+        int recentKeyLimit = manager.getRecentKeyLimit();
+        // Room for more than the limit between flushes, frequency-based eviction keeps the hot keys
+        this.recentKeys = recentKeyLimit > 0 ? Caffeine.newBuilder().maximumSize(recentKeyLimit * 4L).build() : null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    public Cache getRemote() {
+        return remote;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localGet(key);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = remoteGet(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            localPut(key, wrapper.get());
+        } else {
+            misses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (recentKeys != null && key instanceof Long id) {
+            recentKeys.put(id, System.currentTimeMillis());
+        }
+        Object value = localGet(key);
+        if (value != null) {
+            localHits.increment();
+            return (T) refreshIfDue(key, value, valueLoader);
+        }
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, pending);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Object loaded = readOrLoad(key, valueLoader);
+            pending.complete(loaded);
+            return (T) loaded;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, pending);
+        }
+    }
+
+    /**
+     * Value from L1 or Redis, or loaded while holding the key's lease. When
+     * another node holds the lease, wait for it to publish the value first.
+     */
+    private Object readOrLoad(Object key, Callable<?> valueLoader) {
+        // Loaded by the previous single-flight round
+        Object value = localGet(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        ValueWrapper wrapper = remoteGet(key);
+        if (wrapper == null) {
+            String lease = manager.acquireLease(name, key);
+            if (lease != null) {
+                try {
+                    misses.increment();
+                    return load(key, valueLoader);
+                } finally {
+                    manager.releaseLease(name, key, lease);
+                }
+            }
+            wrapper = manager.awaitRemote(name, key, () -> readRemote(key));
+            if (wrapper == null) {
+                // The lease holder found nothing, failed, or is slow or gone: load anyway
+                misses.increment();
+                return load(key, valueLoader);
+            }
+        }
+        remoteHits.increment();
+        value = wrapper.get();
+        if (value != null) {
+            localPut(key, value);
+        }
+        return value;
+    }
+
+    private Object localGet(Object key) {
+        Object value = local.getIfPresent(key);
+        return value instanceof SerializedValue serialized
+                ? valueSerialization.read(ByteBuffer.wrap(serialized.bytes()))
+                : value;
+    }
+
+    private void localPut(Object key, Object value) {
+        if (isImmutable(value)) {
+            local.put(key, value);
+        } else if (value instanceof List<?> list && list.stream().allMatch(TwoLevelCache::isImmutable)) {
+            local.put(key, List.copyOf(list));
+        } else if (valueSerialization != null) {
+            ByteBuffer buffer = valueSerialization.write(value);
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            local.put(key, new SerializedValue(bytes));
+        } else {
+            local.put(key, value);
+        }
+    }
+
+    static boolean isImmutable(Object value) {
+        return value != null && IMMUTABLE_TYPES.get(value.getClass());
+    }
+
+    private static final ClassValue<Boolean> IMMUTABLE_TYPES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isImmutableType(type);
+        }
+    };
+
+    private static boolean isImmutableType(Class<?> type) {
+        if (type.isPrimitive() || type.isEnum() || type == String.class || type == Boolean.class
+                || type == Long.class || type == Integer.class || type == Short.class || type == Byte.class
+                || type == Double.class || type == Float.class || type == Character.class
+                || type == BigDecimal.class || type == BigInteger.class
+                || type.getPackageName().equals("java.time")) {
+            return true;
+        }
+        // Constants with a body are subclasses of their enum
+        if (type.getSuperclass() != null && type.getSuperclass().isEnum()) {
+            return true;
+        }
+        return type.isRecord() && Arrays.stream(type.getRecordComponents())
+                .allMatch(component -> isImmutableType(component.getType()));
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = manager.remoteRead(() -> readRemote(key));
+        Timer timer = remoteReadTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return wrapper;
+    }
+
+    /**
+     * Read from Redis. When the early refresh needs the entry's remaining TTL,
+     * value and TTL come back in one pipelined round trip and the TTL is
+     * recorded.
+     */
+    private ValueWrapper readRemote(Object key) {
+        if (remoteConfiguration == null || remoteConfiguration.isTimeToIdleEnabled() || remoteTtl.isZero()
+                || manager.getEarlyRefreshBeta() <= 0) {
+            return remote.get(key);
+        }
+        TwoLevelCacheManager.RemoteEntry entry = manager.remoteGetWithTimeToLive(remoteKey(key));
+        if (entry == null) {
+            return null;
+        }
+        if (remoteConfiguration.getAllowCacheNullValues() && Arrays.equals(entry.value(), BINARY_NULL_VALUE)) {
+            return new SimpleValueWrapper(null);
+        }
+        Object value = valueSerialization.read(ByteBuffer.wrap(entry.value()));
+        recordTiming(key, entry.timeToLiveMillis(), averageLoadNanos);
+        return new SimpleValueWrapper(value);
+    }
+
+    /**
+     * Redis key of an entry, built like RedisCache builds it: the key
+     * converted to a string, behind the configured prefix
+     */
+    private byte[] remoteKey(Object key) {
+        String converted = key instanceof String string
+                ? string
+                : remoteConfiguration.getConversionService().convert(key, String.class);
+        String cacheKey = remoteConfiguration.usePrefix()
+                ? remoteConfiguration.getKeyPrefixFor(name) + converted
+                : converted;
+        ByteBuffer buffer = remoteConfiguration.getKeySerializationPair().write(cacheKey);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        Object value = loaded;
+        long elapsed = System.nanoTime() - start;
+        averageLoadNanos = averageLoadNanos == 0 ? elapsed : (averageLoadNanos * 7 + elapsed) / 8;
+        Timer timer = loadTimer;
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        if (value != null) {
+            puts.increment();
+            manager.remoteWrite(name, () -> remote.put(key, value));
+            localPut(key, value);
+            recordTiming(key, remoteTtl.toMillis(), elapsed);
+        }
+        return value;
+    }
+
+    /**
+     * XFetch: reload when now - loadTime * beta * ln(random) reaches the
+     * expiry, so the earlier, the less likely. Only one caller per key and
+     * cluster reloads; everyone else, and the reloading caller if the load
+     * fails, gets the current value.
+     */
+    private Object refreshIfDue(Object key, Object value, Callable<?> valueLoader) {
+        double beta = manager.getEarlyRefreshBeta();
+        EntryTiming timing = timings.getIfPresent(key);
+        if (timing == null || beta <= 0) {
+            return value;
+        }
+        double gap = timing.loadNanos() / 1_000_000.0 * beta * -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        if (System.currentTimeMillis() + gap < timing.expiresAt()) {
+            return value;
+        }
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, pending) != null) {
+            return value;
+        }
+        try {
+            String lease = manager.acquireLease(name, key);
+            if (lease == null) {
+                // Another node refreshes it, learn the new TTL from Redis on the next L1 miss
+                timings.invalidate(key);
+                return value;
+            }
+            try {
+                earlyRefreshes.increment();
+                Object fresh = load(key, valueLoader);
+                return fresh != null ? fresh : value;
+            } finally {
+                manager.releaseLease(name, key, lease);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Early refresh of cache '{}' key '{}' failed, keeping the current value: {}",
+                    name, key, e.getMessage());
+            return value;
+        } finally {
+            pending.complete(value);
+            loading.remove(key, pending);
+        }
+    }
+
+    private void recordTiming(Object key, long ttlMillis, long loadNanos) {
+        // Entries without a TTL (or already gone) never need an early refresh
+        if (ttlMillis > 0) {
+            timings.put(key, new EntryTiming(System.currentTimeMillis() + ttlMillis, loadNanos));
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        puts.increment();
+        manager.remoteWrite(name, () -> remote.put(key, value));
+        if (value != null) {
+            localPut(key, value);
+            recordTiming(key, remoteTtl.toMillis(), averageLoadNanos);
+        }
+        manager.publishInvalidation(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper[] result = new ValueWrapper[1];
+        manager.remoteWrite(name, () -> result[0] = remote.putIfAbsent(key, value));
+        ValueWrapper existing = result[0];
+        if (existing == null && value != null) {
+            puts.increment();
+            localPut(key, value);
+            manager.publishInvalidation(name, key);
+        }
+        return existing;
+    }
+
+    /**
+     * Drop the entry from both levels. Inside a transaction it is dropped
+     * again once the transaction completes, as a read in between may have
+     * cached the value from before the commit.
+     */
+    @Override
+    public void evict(Object key) {
+        evictions.increment();
+        Runnable evict = () -> {
+            manager.remoteWrite(name, () -> remote.evict(key));
+            evictLocal(key);
+        };
+        evict.run();
+        manager.repeatAfterCompletion(evict);
+        manager.publishInvalidation(name, key);
+    }
+
+    /**
+     * Drop every entry from both levels, again once a running transaction completes
+     */
+    @Override
+    public void clear() {
+        evictions.increment();
+        Runnable clear = () -> {
+            manager.remoteWrite(name, remote::clear);
+            clearLocal();
+        };
+        clear.run();
+        manager.repeatAfterCompletion(clear);
+        manager.publishInvalidation(name, null);
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(name, localHits.sum(), remoteHits.sum(), misses.sum(),
+                puts.sum(), evictions.sum(), earlyRefreshes.sum(), local.estimatedSize());
+    }
+
+    /**
+     * Register this cache's counters, L1 size and latency timers, tagged with
+     * the cache name. Gets are tagged with the level that answered them.
+     */
+    void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("cache", name);
+        FunctionCounter.builder("cache.gets", localHits, LongAdder::sum)
+                .tags(tags).tags("result", "hit", "level", "local")
+                .description("Reads answered by the in-heap L1").register(registry);
+        FunctionCounter.builder("cache.gets", remoteHits, LongAdder::sum)
+                .tags(tags).tags("result", "hit", "level", "remote")
+                .description("Reads answered by Redis").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags(tags).tags("result", "miss", "level", "none")
+                .description("Reads that loaded the value").register(registry);
+        FunctionCounter.builder("cache.puts", puts, LongAdder::sum).tags(tags).register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tags(tags).register(registry);
+        FunctionCounter.builder("cache.early.refreshes", earlyRefreshes, LongAdder::sum)
+                .tags(tags).description("Entries reloaded before their Redis TTL ran out").register(registry);
+        Gauge.builder("cache.size", local, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tags(tags).description("Entries in L1").register(registry);
+        remoteReadTimer = Timer.builder("cache.remote.reads").tags(tags)
+                .description("Redis reads including value decoding").register(registry);
+        loadTimer = Timer.builder("cache.loads").tags(tags)
+                .description("Loads of missing or refreshed values").register(registry);
+    }
+
+    /**
+     * ID keys read since the last call, with the time of their latest read
+     */
+    Map<Long, Long> drainRecentKeys() {
+        if (recentKeys == null) {
+            return Map.of();
+        }
+        Map<Long, Long> drained = new HashMap<>(recentKeys.asMap());
+        // Keep keys read again meanwhile for the next flush
+        drained.forEach((key, readAt) -> recentKeys.asMap().remove(key, readAt));
+        return drained;
+    }
+
+    /**
+     * Drop an entry from L1 only, used when another node reports a change
+     */
+    void evictLocal(Object key) {
+        local.invalidate(key);
+        timings.invalidate(key);
+    }
+
+    /**
+     * Drop all L1 entries, used when another node cleared the cache
+     */
+    void clearLocal() {
+        local.invalidateAll();
+        timings.invalidateAll();
+    }
+
+    /**
+     * Encoded form of a mutable value in L1
+     */
+    private record SerializedValue(byte[] bytes) {
+    }
+
+    /**
+     * When an entry expires from Redis and how long its last load took
+     */
+    private record EntryTiming(long expiresAt, long loadNanos) {
+    }
+}
@@ -0,0 +1,462 @@
+package com.harmonia.store.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.harmonia.store.config.LocalCacheProperties;
+import com.harmonia.store.config.RedisCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * CacheManager that puts a bounded Caffeine cache in front of every cache of
+ * the wrapped Redis CacheManager and keeps the L1 copies of all nodes
+ * consistent through Redis pub/sub.
+ *
+ * Every Redis call goes through a circuit breaker. While Redis is failing,
+ * reads miss, so entries are served from L1 or loaded from the database,
+ * and writes are skipped. Caches with skipped writes may hold stale entries
+ * in Redis; they are cleared as soon as the breaker closes again.
+ *
+ * As a MeterBinder it publishes the metrics of every cache, including the
+ * ones created after binding.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener, MeterBinder {
+
+    private final CacheManager remoteCacheManager;
+    private final LocalCacheProperties properties;
+    private final RedisCacheProperties.Loading loading;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Set<String> staleRemoteCaches = ConcurrentHashMap.newKeySet();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, Object>> remoteInvalidationListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, Object>> invalidationListeners = new CopyOnWriteArrayList<>();
+    private volatile int recentKeyLimit;
+    private volatile MeterRegistry meterRegistry;
+
+    // Invalidation messages are plain JSON of one fixed type, never Java serialization: anyone who can
+    // publish on the channel reaches every node. Integral keys are read back as Long, like the ID keys.
+    private static final ObjectMapper MESSAGE_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_LONG_FOR_INTS);
+    private static final ObjectReader MESSAGE_READER = MESSAGE_MAPPER.readerFor(CacheInvalidationMessage.class);
+    private static final ObjectWriter MESSAGE_WRITER = MESSAGE_MAPPER.writerFor(CacheInvalidationMessage.class);
+
+    // Deletes a lease only if it still holds the caller's token
+    private static final byte[] RELEASE_LEASE = ("if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, LocalCacheProperties properties,
+                                RedisCacheProperties.Loading loading, RedisTemplate<String, Object> redisTemplate,
+                                RedisCircuitBreaker circuitBreaker) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.properties = properties;
+        this.loading = loading;
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        circuitBreaker.addRecoveryListener(this::clearStaleRemoteCaches);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        cache = caches.computeIfAbsent(name, key -> createCache(key, remote));
+        // Registering the same meters again is a no-op, so racing with bindTo is harmless
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            cache.bindTo(registry);
+        }
+        return cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        caches.values().forEach(cache -> cache.bindTo(registry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public RedisCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    int getRecentKeyLimit() {
+        return recentKeyLimit;
+    }
+
+    /**
+     * Record reads of ID keys and keep up to limit of the most recent ones
+     * per cache in Redis. Applies to caches created afterwards, 0 disables.
+     */
+    public void setRecentKeyLimit(int recentKeyLimit) {
+        this.recentKeyLimit = recentKeyLimit;
+    }
+
+    /**
+     * Write the ID keys read since the last flush to a sorted set per cache,
+     * scored by read time, and trim it to the most recent ones
+     */
+    public void flushRecentKeys() {
+        int limit = recentKeyLimit;
+        for (TwoLevelCache cache : caches.values()) {
+            Map<Long, Long> accessed = cache.drainRecentKeys();
+            if (accessed.isEmpty()) {
+                continue;
+            }
+            byte[] recentKey = recentKey(cache.getName());
+            Set<Tuple> tuples = new HashSet<>();
+            accessed.forEach((id, readAt) ->
+                    tuples.add(Tuple.of(String.valueOf(id).getBytes(StandardCharsets.UTF_8), (double) readAt)));
+            circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Long>) connection -> {
+                connection.zSetCommands().zAdd(recentKey, tuples);
+                return connection.zSetCommands().zRemRange(recentKey, 0, -limit - 1);
+            }), () -> null);
+        }
+    }
+
+    /**
+     * The most recently read ID keys of a cache across all nodes, most recent
+     * first. Empty when Redis is unavailable.
+     */
+    public List<Long> recentKeys(String cacheName) {
+        int limit = recentKeyLimit;
+        if (limit <= 0) {
+            return List.of();
+        }
+        byte[] recentKey = recentKey(cacheName);
+        Set<byte[]> members = circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRevRange(recentKey, 0, limit - 1)), () -> null);
+        List<Long> ids = new ArrayList<>();
+        if (members != null) {
+            for (byte[] member : members) {
+                ids.add(Long.valueOf(new String(member, StandardCharsets.UTF_8)));
+            }
+        }
+        return ids;
+    }
+
+    private static byte[] recentKey(String cacheName) {
+        return ("harmonia:cache:recent:" + cacheName).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Register a callback for invalidations received from other nodes. It is
+     * called with the cache name and the key (null when the cache was cleared).
+     */
+    public void addRemoteInvalidationListener(BiConsumer<String, Object> listener) {
+        remoteInvalidationListeners.add(listener);
+    }
+
+    /**
+     * Register a callback for every invalidation, this node's own and those
+     * of other nodes. Local ones are reported once the writing transaction
+     * has completed, after its after-commit event listeners; remote ones
+     * after the remote invalidation listeners. State rebuilt from the change
+     * is therefore already in place when the callback runs.
+     */
+    public void addInvalidationListener(BiConsumer<String, Object> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private TwoLevelCache createCache(String name, Cache remote) {
+        LocalCacheProperties.Spec spec = properties.specFor(name);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+        Duration remoteTtl = remote instanceof RedisCache redisCache
+                ? redisCache.getCacheConfiguration().getTtlFunction().getTimeToLive(name, null)
+                : Duration.ZERO;
+        return new TwoLevelCache(name, local, remote, remoteTtl, this);
+    }
+
+    double getEarlyRefreshBeta() {
+        return loading.getEarlyRefreshBeta();
+    }
+
+    /**
+     * Take the cluster-wide lease on loading a key. Returns the token to
+     * release it with, or null when another node holds it. Without Redis
+     * every node loads on its own, so the lease is granted.
+     */
+    String acquireLease(String cacheName, Object key) {
+        String token = nodeId + ":" + UUID.randomUUID();
+        byte[] leaseKey = leaseKey(cacheName, key);
+        byte[] value = token.getBytes(StandardCharsets.UTF_8);
+        Boolean acquired = circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(leaseKey, value, Expiration.from(loading.getLeaseTime()),
+                        SetOption.SET_IF_ABSENT)), () -> null);
+        return Boolean.FALSE.equals(acquired) ? null : token;
+    }
+
+    void releaseLease(String cacheName, Object key, String token) {
+        byte[] leaseKey = leaseKey(cacheName, key);
+        byte[] value = token.getBytes(StandardCharsets.UTF_8);
+        circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.scriptingCommands().eval(RELEASE_LEASE, ReturnType.INTEGER, 1, leaseKey, value)), () -> null);
+    }
+
+    /**
+     * Poll Redis until the read finds a value, the lease wait is over, or
+     * the lease was released without a value, as when the holder's loader
+     * found nothing or failed. Null unless a value was found.
+     */
+    Cache.ValueWrapper awaitRemote(String cacheName, Object key, Supplier<Cache.ValueWrapper> read) {
+        byte[] leaseKey = leaseKey(cacheName, key);
+        long deadline = System.nanoTime() + loading.getLeaseWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            // Checked before the read: the holder writes the value before releasing
+            Boolean leaseHeld = circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Boolean>)
+                    connection -> connection.keyCommands().exists(leaseKey)), () -> false);
+            Cache.ValueWrapper wrapper = remoteRead(read);
+            if (wrapper != null || !Boolean.TRUE.equals(leaseHeld)) {
+                return wrapper;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Raw value and remaining TTL of a Redis key, read in one pipelined round
+     * trip. Null when the key does not exist.
+     */
+    RemoteEntry remoteGetWithTimeToLive(byte[] redisKey) {
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().get(redisKey);
+            connection.keyCommands().pTtl(redisKey);
+            return null;
+        }, null);
+        return replies.get(0) instanceof byte[] value
+                ? new RemoteEntry(value, replies.get(1) instanceof Long ttl ? ttl : 0)
+                : null;
+    }
+
+    /**
+     * A Redis value and its remaining TTL in milliseconds, 0 or less when it has none
+     */
+    record RemoteEntry(byte[] value, long timeToLiveMillis) {
+    }
+
+    private static byte[] leaseKey(String cacheName, Object key) {
+        return ("lease:" + cacheName + "::" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read from Redis through the circuit breaker, null when Redis is unavailable
+     */
+    <T> T remoteRead(Supplier<T> read) {
+        return circuitBreaker.execute(read, () -> null);
+    }
+
+    /**
+     * Write to Redis through the circuit breaker. A skipped or failed write
+     * marks the cache for clearing on recovery.
+     */
+    void remoteWrite(String cacheName, Runnable write) {
+        circuitBreaker.execute(() -> {
+            write.run();
+            return null;
+        }, () -> {
+            staleRemoteCaches.add(cacheName);
+            return null;
+        });
+    }
+
+    /**
+     * Recovery listener of the circuit breaker, so it calls Redis directly. A
+     * failure keeps the cache marked and is rethrown to keep the breaker open.
+     */
+    private void clearStaleRemoteCaches() {
+        for (String cacheName : List.copyOf(staleRemoteCaches)) {
+            staleRemoteCaches.remove(cacheName);
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote != null) {
+                log.info("Clearing Redis cache '{}' after writes skipped during the outage", cacheName);
+                try {
+                    remote.clear();
+                    // Peers could not hear about the skipped writes either
+                    publish(new CacheInvalidationMessage(nodeId, cacheName, null));
+                } catch (RuntimeException e) {
+                    staleRemoteCaches.add(cacheName);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an eviction again when the current transaction completes, after
+     * commit before any after-commit listener, or after a rollback. Nothing
+     * happens outside a transaction.
+     */
+    void repeatAfterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        eviction.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Tell the other nodes to drop their L1 copy of a key (or of the whole
+     * cache when key is null). Deferred until commit when called inside a
+     * transaction so peers do not reload uncommitted state.
+     */
+    void publishInvalidation(String cacheName, Object key) {
+        CacheInvalidationMessage message = new CacheInvalidationMessage(nodeId, cacheName, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCompletion() {
+                    // Registered last, so it completes after the listeners registered while the transaction ran
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status == STATUS_COMMITTED) {
+                                notifyListeners(invalidationListeners, cacheName, key);
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void afterCommit() {
+                    send(message);
+                }
+            });
+        } else {
+            send(message);
+            notifyListeners(invalidationListeners, cacheName, key);
+        }
+    }
+
+    private void send(CacheInvalidationMessage message) {
+        boolean published = circuitBreaker.execute(() -> {
+            publish(message);
+            return true;
+        }, () -> false);
+        if (!published) {
+            log.debug("Could not publish invalidation for cache '{}' key '{}'", message.cacheName(), message.key());
+        }
+    }
+
+    private void publish(CacheInvalidationMessage message) {
+        byte[] channel = properties.getInvalidationChannel().getBytes(StandardCharsets.UTF_8);
+        byte[] body;
+        try {
+            body = MESSAGE_WRITER.writeValueAsBytes(message.key() == null || isMessageKey(message.key())
+                    ? message
+                    // Only ID and string keys survive JSON unchanged, peers drop the whole cache for anything else
+                    : new CacheInvalidationMessage(message.origin(), message.cacheName(), null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = MESSAGE_READER.readValue(message.getBody());
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (invalidation.cacheName() == null || invalidation.key() != null && !isMessageKey(invalidation.key())) {
+            log.warn("Ignoring cache invalidation message for cache '{}' with an unsupported key", invalidation.cacheName());
+            return;
+        }
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            if (invalidation.key() == null) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(invalidation.key());
+            }
+        }
+        notifyListeners(remoteInvalidationListeners, invalidation.cacheName(), invalidation.key());
+        notifyListeners(invalidationListeners, invalidation.cacheName(), invalidation.key());
+    }
+
+    private static boolean isMessageKey(Object key) {
+        return key instanceof Long || key instanceof String;
+    }
+
+    private static void notifyListeners(List<BiConsumer<String, Object>> listeners, String cacheName, Object key) {
+        for (BiConsumer<String, Object> listener : listeners) {
+            try {
+                listener.accept(cacheName, key);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed for cache '{}': {}", cacheName, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,22 +1,85 @@
 package com.harmonia.store.config;
 
-import org.springframework.cache.CacheManager;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.harmonia.store.cache.BinaryRedisSerializer;
+import com.harmonia.store.cache.RedisCircuitBreaker;
+import com.harmonia.store.cache.SearchResultCache;
+import com.harmonia.store.cache.TwoLevelCacheManager;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.dto.RatingSummary;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableCaching
-public class CacheConfig {
+@EnableConfigurationProperties({LocalCacheProperties.class, RedisCacheProperties.class, CacheWarmupProperties.class})
+public class CacheConfig implements CachingConfigurer {
+
+    // Types stored in the Redis caches, encoded by the binary codec
+    public static final List<Class<?>> CACHED_TYPES = List.of(InstrumentSummary.class, Category.class, Customer.class,
+            RatingSummary.class);
+
+    /**
+     * JSON serializer for cached values. Registers java.time support for
+     * entity timestamps and ignores derived getters (isInStock, getFullName)
+     * that have no matching property when reading back.
+     */
+    public static GenericJackson2JsonRedisSerializer jsonRedisSerializer() {
+        return new GenericJackson2JsonRedisSerializer()
+                .configure(mapper -> mapper.registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+    }
+
+    /**
+     * Value serializer for a Redis cache, as selected by app.cache.redis
+     */
+    public static RedisSerializer<Object> valueSerializer(RedisCacheProperties.Spec spec) {
+        return switch (spec.getCodec()) {
+            case JSON -> jsonRedisSerializer();
+            case BINARY -> new BinaryRedisSerializer(CACHED_TYPES, spec.getCompressionThreshold(), jsonRedisSerializer());
+        };
+    }
+
+    /**
+     * Redis failures are absorbed by the circuit breaker in the cache manager;
+     * anything else going wrong in a cache (a value that cannot be decoded,
+     * for instance) is logged and treated as a miss rather than failing the call
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(RedisCacheProperties redisCacheProperties) {
+        RedisCacheProperties.CircuitBreaker settings = redisCacheProperties.getCircuitBreaker();
+        return new RedisCircuitBreaker(settings.getFailureThreshold(), settings.getSlowCallThreshold(),
+                settings.getOpenDuration());
+    }
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
@@ -28,7 +91,7 @@ public class CacheConfig {
         template.setHashKeySerializer(new StringRedisSerializer());
 
         // Serializer for values
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        GenericJackson2JsonRedisSerializer jsonSerializer = jsonRedisSerializer();
         template.setValueSerializer(jsonSerializer);
         template.setHashValueSerializer(jsonSerializer);
         
@@ -37,23 +100,67 @@ public class CacheConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             RedisTemplate<String, Object> redisTemplate,
+                                             LocalCacheProperties localCacheProperties,
+                                             RedisCacheProperties redisCacheProperties,
+                                             CacheWarmupProperties cacheWarmupProperties,
+                                             RedisCircuitBreaker redisCircuitBreaker) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30)) // Default TTL of 30 minutes
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(valuesFor(redisCacheProperties.getDefaults()))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .withCacheConfiguration("instruments", 
-                    config.entryTtl(Duration.ofMinutes(15))) // Instrument cache for 15 minutes
+                    config.entryTtl(Duration.ofMinutes(15)) // Instrument cache for 15 minutes
+                        .serializeValuesWith(valuesFor(redisCacheProperties.specFor("instruments"))))
                 .withCacheConfiguration("categories", 
-                    config.entryTtl(Duration.ofHours(1))) // Category cache for 1 hour
+                    config.entryTtl(Duration.ofHours(1)) // Category cache for 1 hour
+                        .serializeValuesWith(valuesFor(redisCacheProperties.specFor("categories"))))
                 .withCacheConfiguration("customers", 
-                    config.entryTtl(Duration.ofMinutes(45))) // Customer cache for 45 minutes
-                .withCacheConfiguration("statistics", 
-                    config.entryTtl(Duration.ofMinutes(5))) // Statistics cache for 5 minutes
+                    config.entryTtl(Duration.ofMinutes(45)) // Customer cache for 45 minutes
+                        .serializeValuesWith(valuesFor(redisCacheProperties.specFor("customers"))))
+                .withCacheConfiguration("ratings",
+                    config.entryTtl(Duration.ofHours(1)) // Rating summaries, evicted on every review write
+                        .serializeValuesWith(valuesFor(redisCacheProperties.specFor("ratings"))))
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // In-heap L1 in front of Redis, see app.cache.local
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, localCacheProperties,
+                redisCacheProperties.getLoading(), redisTemplate, redisCircuitBreaker);
+        // Hot IDs for the next node's warm-up, see CacheWarmupService
+        cacheManager.setRecentKeyLimit(cacheWarmupProperties.isEnabled() ? cacheWarmupProperties.getRecentKeys() : 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public SearchResultCache<InstrumentSummary> instrumentSearchCache(
+            @Value("${app.search.cache.maximum-weight}") long maximumWeight,
+            @Value("${app.search.cache.expire-after-write}") Duration expireAfterWrite) {
+        return new SearchResultCache<>(maximumWeight, expireAfterWrite);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            LocalCacheProperties localCacheProperties) {
+        // Started by CacheInvalidationSubscriber, startup must not depend on Redis
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(localCacheProperties.getInvalidationChannel()));
+        return container;
+    }
+
+    private static RedisSerializationContext.SerializationPair<Object> valuesFor(RedisCacheProperties.Spec spec) {
+        return RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer(spec));
     }
 } 
\ No newline at end of file
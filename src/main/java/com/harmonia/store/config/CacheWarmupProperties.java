@@ -0,0 +1,31 @@
+package com.harmonia.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for preloading the caches at startup, before the readiness probe
+ * reports the node as ready
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.warmup")
+public class CacheWarmupProperties {
+
+    private boolean enabled = true;
+
+    // Keys loaded concurrently
+    private int parallelism = 4;
+
+    // Warm-up gives up on the remaining keys after this and the node becomes ready anyway
+    private Duration timeout = Duration.ofSeconds(60);
+
+    // Most recently accessed IDs kept in Redis per cache and preloaded by the next node to start, 0 disables
+    private int recentKeys = 200;
+
+    // How often recorded accesses are written to Redis
+    private Duration recentKeysFlushInterval = Duration.ofSeconds(30);
+}
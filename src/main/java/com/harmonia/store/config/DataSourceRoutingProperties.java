@@ -0,0 +1,40 @@
+package com.harmonia.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read replica used for read-only transactions. Routing is only set up when
+ * app.datasource.replica.url is set, otherwise everything uses spring.datasource.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource")
+public class DataSourceRoutingProperties {
+
+    private Replica replica = new Replica();
+
+    // Reads go back to the primary while the replica is further behind than this
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // How often the heartbeat is written to the primary and read back from the replica
+    private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        // Default to the spring.datasource credentials
+        private String username;
+
+        private String password;
+
+        // Defaults to spring.datasource.hikari.maximum-pool-size, like every other pool setting
+        private Integer maximumPoolSize;
+    }
+}
@@ -0,0 +1,33 @@
+package com.harmonia.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Regions of Hibernate's second-level and query cache. Every region
+ * Hibernate uses must be listed, startup fails on a missing one.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.hibernate")
+public class HibernateCacheProperties {
+
+    private boolean enabled = true;
+
+    // Per region name
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maximumSize = 1000;
+
+        // Time to live after write, none if unset
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,71 @@
+package com.harmonia.store.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP caching of the catalog GET endpoints
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.http")
+public class HttpCachingProperties {
+
+    // ETag/Last-Modified on catalog responses, 304 for unchanged If-None-Match/If-Modified-Since
+    private boolean conditionalGet = true;
+
+    // Cache-Control value per path pattern, the most specific matching pattern wins
+    private Map<String, String> cacheControl = new LinkedHashMap<>();
+
+    // Serialized bodies of the list endpoints, reused until their collection changes
+    private ResponseCache responseCache = new ResponseCache();
+
+    // Parsed from cacheControl on first use, not a bindable property
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile List<Map.Entry<PathPattern, String>> parsedCacheControl;
+
+    /**
+     * Cache-Control for a request path, null if no pattern matches
+     */
+    public String cacheControlFor(String path) {
+        List<Map.Entry<PathPattern, String>> patterns = parsedCacheControl;
+        if (patterns == null) {
+            patterns = cacheControl.entrySet().stream()
+                    .map(entry -> Map.entry(PathPatternParser.defaultInstance.parse(entry.getKey()), entry.getValue()))
+                    .sorted(Map.Entry.comparingByKey(PathPattern.SPECIFICITY_COMPARATOR))
+                    .toList();
+            parsedCacheControl = patterns;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (Map.Entry<PathPattern, String> pattern : patterns) {
+            if (pattern.getKey().matches(container)) {
+                return pattern.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Getter
+    @Setter
+    public static class ResponseCache {
+        private boolean enabled = true;
+        // JSON and gzip bytes of all cached bodies together
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+        // Bodies at least this large are also kept gzip compressed
+        private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+        // Rebuilt at least this often even if no write changes the version
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+}
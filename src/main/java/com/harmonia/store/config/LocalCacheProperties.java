@@ -0,0 +1,38 @@
+package com.harmonia.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the in-process (L1) caches that sit in front of Redis
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.local")
+public class LocalCacheProperties {
+
+    // Redis pub/sub channel used to invalidate L1 entries on other nodes
+    private String invalidationChannel = "harmonia:cache:invalidation";
+
+    // Spec applied to caches without an explicit entry
+    private Spec defaults = new Spec();
+
+    // Per cache name overrides
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private long maximumSize = 1000;
+        private Duration ttl = Duration.ofMinutes(1);
+    }
+}
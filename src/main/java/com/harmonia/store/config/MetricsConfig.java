@@ -0,0 +1,21 @@
+package com.harmonia.store.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers for the @Timed services. Repository calls, HTTP requests, Hibernate
+ * statistics, the Hikari pool, Lettuce commands and the caches (see
+ * TwoLevelCacheManager) are instrumented without annotations; percentiles
+ * are configured under management.metrics.distribution.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
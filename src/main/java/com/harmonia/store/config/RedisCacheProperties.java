@@ -0,0 +1,69 @@
+package com.harmonia.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the values stored in the Redis (L2) caches
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.redis")
+public class RedisCacheProperties {
+
+    // Spec applied to caches without an explicit entry
+    private Spec defaults = new Spec();
+
+    // Per cache name overrides
+    private Map<String, Spec> caches = new HashMap<>();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Loading loading = new Loading();
+
+    public Spec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    public enum Codec {
+        // Self-describing JSON with class names
+        JSON,
+        // Positional Smile with a schema fingerprint, see BinaryRedisSerializer
+        BINARY
+    }
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private Codec codec = Codec.BINARY;
+        // Binary values at least this many bytes are LZ4 compressed, 0 disables compression
+        private int compressionThreshold = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        // Consecutive failed or slow Redis calls that open the breaker
+        private int failureThreshold = 5;
+        // Calls slower than this count as failures
+        private Duration slowCallThreshold = Duration.ofMillis(500);
+        // Time Redis is bypassed before a probe call is let through
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Loading {
+        // Longest a node may hold the cluster-wide lease on loading a key
+        private Duration leaseTime = Duration.ofSeconds(10);
+        // How long other nodes wait for the lease holder's value before loading it themselves
+        private Duration leaseWait = Duration.ofSeconds(2);
+        // XFetch beta: higher refreshes hot entries earlier before their TTL, 0 disables
+        private double earlyRefreshBeta = 1.0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.harmonia.store.config;
+
+import com.harmonia.store.search.FacetIndex;
+import com.harmonia.store.search.TrigramIndex;
+import com.harmonia.store.service.InstrumentSearchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class SearchConfig {
+
+    @Bean
+    public TrigramIndex instrumentSearchIndex() {
+        // name, brand, description
+        return new TrigramIndex(3.0, 2.0, 1.0);
+    }
+
+    @Bean
+    public TrigramIndex customerSearchIndex() {
+        // first name, last name, full name
+        return new TrigramIndex(2.0, 2.0, 1.0);
+    }
+
+    @Bean
+    public FacetIndex instrumentFacetIndex(
+            @Value("${app.statistics.price-buckets:100,250,500,1000,2500,5000}") BigDecimal[] priceBuckets) {
+        // Prices in cents, bucketed like the catalog statistics histogram
+        long[] priceBounds = Arrays.stream(priceBuckets)
+                .mapToLong(InstrumentSearchService::toCents)
+                .toArray();
+        return new FacetIndex(
+                List.of(InstrumentSearchService.TYPE, InstrumentSearchService.CONDITION, InstrumentSearchService.BRAND,
+                        InstrumentSearchService.CATEGORY, InstrumentSearchService.IN_STOCK),
+                Map.of(InstrumentSearchService.PRICE, priceBounds));
+    }
+}
@@ -0,0 +1,27 @@
+package com.harmonia.store.config;
+
+import com.harmonia.store.service.StartupService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Actuator view of the background startup tasks: the "startup" health
+ * indicator is part of the readiness group, and /actuator/info reports how
+ * long each phase took
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public HealthIndicator startupHealthIndicator(StartupService startupService) {
+        return () -> startupService.isFinished() ? Health.up().build() : Health.outOfService().build();
+    }
+
+    @Bean
+    public InfoContributor startupInfoContributor(StartupService startupService) {
+        return builder -> builder.withDetail("startup", startupService.getReport());
+    }
+}
@@ -0,0 +1,49 @@
+package com.harmonia.store.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harmonia.store.cache.ResponseBodyCache;
+import com.harmonia.store.controller.ConditionalGetInterceptor;
+import com.harmonia.store.service.CatalogVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * Conditional GETs and cached response bodies of the catalog endpoints, see app.http
+ */
+@Configuration
+@EnableConfigurationProperties(HttpCachingProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private HttpCachingProperties httpCachingProperties;
+
+    @Bean
+    public ResponseBodyCache responseBodyCache(ObjectMapper objectMapper) {
+        return new ResponseBodyCache(objectMapper, httpCachingProperties.getResponseCache());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Reviews and ratings are not versioned per instrument
+        registry.addInterceptor(new ConditionalGetInterceptor(catalogVersions, httpCachingProperties,
+                        "instruments", "/api/v1/instruments/{id}", Map.of("includeRatings", "ratings")))
+                .addPathPatterns("/api/v1/instruments/**")
+                .excludePathPatterns("/api/v1/instruments/*/reviews", "/api/v1/instruments/*/reviews/**",
+                        "/api/v1/instruments/*/rating");
+        registry.addInterceptor(new ConditionalGetInterceptor(catalogVersions, httpCachingProperties,
+                        "categories", "/api/v1/categories/{id}", Map.of()))
+                .addPathPatterns("/api/v1/categories/**");
+        registry.addInterceptor(new ConditionalGetInterceptor(catalogVersions, httpCachingProperties,
+                        "customers", "/api/v1/customers/{id}", Map.of()))
+                .addPathPatterns("/api/v1/customers/**");
+    }
+}
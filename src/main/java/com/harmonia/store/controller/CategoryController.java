@@ -1,13 +1,19 @@
 package com.harmonia.store.controller;
 
+import com.harmonia.store.cache.ResponseBodyCache;
 import com.harmonia.store.model.Category;
+import com.harmonia.store.service.CatalogVersions;
 import com.harmonia.store.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,16 +30,27 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    // Serialized list body, rebuilt when the category stamp changes
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
     @GetMapping("/")
     @Operation(summary = "Get all categories",
             description = "Returns a list of all available categories")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of categories obtained successfully"),
+            @ApiResponse(responseCode = "200", description = "List of categories obtained successfully",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = Category.class)))),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<byte[]> getAllCategories(
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        return responseBodyCache.get("categories", catalogVersions.collection("categories").version(),
+                acceptEncoding, categoryService::getAllCategories);
     }
 
     @GetMapping("/{id}")
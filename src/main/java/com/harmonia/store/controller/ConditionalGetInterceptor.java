@@ -0,0 +1,89 @@
+package com.harmonia.store.controller;
+
+import com.harmonia.store.cache.ResponseBodyCache;
+import com.harmonia.store.config.HttpCachingProperties;
+import com.harmonia.store.service.CatalogVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Conditional GETs of one collection's endpoints.
+ *
+ * Sets a strong ETag and Last-Modified from the collection's version stamp,
+ * or from the entry's stamp on the single-entry endpoint. The ETag differs
+ * between clients that accept gzip and those that do not, as the body may
+ * be compressed. Every GET of the collection gets Vary: Accept-Encoding and
+ * the configured Cache-Control, also with conditional GETs turned off. A request whose If-None-Match or If-Modified-Since still
+ * matches is answered with 304 before the controller runs, so neither the
+ * service nor the JSON serialization is involved.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final CatalogVersions catalogVersions;
+    private final HttpCachingProperties properties;
+    private final String collection;
+    private final String itemPattern;
+    private final Map<String, String> dependentCollections;
+
+    /**
+     * @param itemPattern          handler pattern of the single-entry endpoint, e.g. "/api/v1/instruments/{id}"
+     * @param dependentCollections request parameter set to "true" mapped to a further collection
+     *                             the response then depends on
+     */
+    public ConditionalGetInterceptor(CatalogVersions catalogVersions, HttpCachingProperties properties,
+                                     String collection, String itemPattern, Map<String, String> dependentCollections) {
+        this.catalogVersions = catalogVersions;
+        this.properties = properties;
+        this.collection = collection;
+        this.itemPattern = itemPattern;
+        this.dependentCollections = dependentCollections;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        // Set here only, 304s included: list bodies may be gzip compressed and strong ETags differ with them
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String cacheControl = properties.cacheControlFor(request.getRequestURI().substring(request.getContextPath().length()));
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        if (!properties.isConditionalGet()) {
+            return true;
+        }
+        CatalogVersions.Stamp stamp;
+        if (itemPattern.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            try {
+                stamp = catalogVersions.resource(collection, Long.valueOf(variables.get("id")));
+            } catch (NumberFormatException e) {
+                // Rejected by the controller, nothing to cache
+                return true;
+            }
+        } else {
+            stamp = catalogVersions.collection(collection);
+        }
+        for (Map.Entry<String, String> dependent : dependentCollections.entrySet()) {
+            if (Boolean.parseBoolean(request.getParameter(dependent.getKey()))) {
+                stamp = stamp.and(catalogVersions.collection(dependent.getValue()));
+            }
+        }
+
+        String version = stamp.version();
+        if (ResponseBodyCache.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            version += "-gzip";
+        }
+
+        return !new ServletWebRequest(request, response).checkNotModified(version, stamp.lastModified());
+    }
+}
@@ -2,6 +2,8 @@ package com.harmonia.store.controller;
 
 import com.harmonia.store.model.Customer;
 import com.harmonia.store.model.CustomerStatus;
+import com.harmonia.store.service.CatalogExportService;
+import com.harmonia.store.service.ExportFormat;
 import com.harmonia.store.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,8 +12,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
@@ -26,6 +30,9 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CatalogExportService catalogExportService;
+
     @GetMapping("/")
     @Operation(summary = "Get all customers",
             description = "Returns a list of all customers")
@@ -38,6 +45,18 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Export all customers",
+            description = "Streams every customer as NDJSON (one object per line) or as a JSON array")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        MediaType contentType = format == ExportFormat.NDJSON
+                ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.APPLICATION_JSON;
+        StreamingResponseBody body = out -> catalogExportService.exportCustomers(out, format);
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get customer by ID",
             description = "Returns a specific customer by their ID")
@@ -137,7 +156,7 @@ public class CustomerController {
 
     @PatchMapping("/{id}/purchase")
     @Operation(summary = "Add purchase to customer",
-            description = "Adds a purchase to customer history")
+            description = "Adds a purchase to customer history. Purchases are buffered and written in batches, usually within a second")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Purchase added"),
             @ApiResponse(responseCode = "404", description = "Customer not found")
@@ -151,7 +170,7 @@ public class CustomerController {
 
     @PatchMapping("/{id}/loyalty")
     @Operation(summary = "Add loyalty points to customer",
-            description = "Adds loyalty points to customer account")
+            description = "Adds loyalty points to customer account. Points are buffered and written in batches, usually within a second")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Loyalty points added"),
             @ApiResponse(responseCode = "404", description = "Customer not found")
@@ -1,23 +1,46 @@
 package com.harmonia.store.controller;
 
+import com.harmonia.store.cache.ResponseBodyCache;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.FacetedSearchResult;
+import com.harmonia.store.dto.ImportResult;
+import com.harmonia.store.dto.InstrumentSearchCriteria;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.dto.RatedInstrumentSummary;
+import com.harmonia.store.model.Condition;
 import com.harmonia.store.model.Instrument;
 import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.service.CatalogExportService;
+import com.harmonia.store.service.CatalogVersions;
+import com.harmonia.store.service.ExportFormat;
+import com.harmonia.store.service.ImportFormat;
+import com.harmonia.store.service.InstrumentImportService;
+import com.harmonia.store.service.InstrumentRatings;
+import com.harmonia.store.service.InstrumentSearchService;
 import com.harmonia.store.service.InstrumentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
@@ -30,16 +53,58 @@ public class InstrumentController {
     @Autowired
     private InstrumentService instrumentService;
 
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private InstrumentImportService instrumentImportService;
+
+    @Autowired
+    private InstrumentSearchService instrumentSearchService;
+
+    @Autowired
+    private InstrumentRatings instrumentRatings;
+
+    // Serialized list bodies, rebuilt when the instrument or ratings stamp changes
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
     @GetMapping("/")
     @Operation(summary = "Get all instruments",
                description = "Returns a list of all available instruments")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "List of instruments obtained successfully"),
+        @ApiResponse(responseCode = "200", description = "List of instruments obtained successfully",
+                content = @Content(mediaType = "application/json",
+                        array = @ArraySchema(schema = @Schema(implementation = RatedInstrumentSummary.class)))),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<List<Instrument>> getAllInstruments() {
-        List<Instrument> instruments = instrumentService.getAllInstruments();
-        return ResponseEntity.ok(instruments);
+    public ResponseEntity<byte[]> getAllInstruments(
+            @Parameter(description = "Include review count and average rating")
+            @RequestParam(defaultValue = "false") boolean includeRatings,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        // Taken before loading, so a write during the load leaves the body outdated
+        CatalogVersions.Stamp stamp = catalogVersions.collection("instruments");
+        if (includeRatings) {
+            stamp = stamp.and(catalogVersions.collection("ratings"));
+        }
+        return responseBodyCache.get(includeRatings ? "instruments:rated" : "instruments", stamp.version(),
+                acceptEncoding, () -> instrumentRatings.rate(instrumentService.getAllInstruments(), includeRatings));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export all instruments",
+               description = "Streams every instrument as NDJSON (one object per line) or as a JSON array")
+    public ResponseEntity<StreamingResponseBody> exportInstruments(
+            @Parameter(description = "Output format") @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        MediaType contentType = format == ExportFormat.NDJSON
+                ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.APPLICATION_JSON;
+        StreamingResponseBody body = out -> catalogExportService.exportInstruments(out, format);
+        return ResponseEntity.ok().contentType(contentType).body(body);
     }
 
     @GetMapping("/{id}")
@@ -49,7 +114,7 @@ public class InstrumentController {
         @ApiResponse(responseCode = "200", description = "Instrument found"),
         @ApiResponse(responseCode = "404", description = "Instrument not found")
     })
-    public ResponseEntity<Instrument> getInstrumentById(
+    public ResponseEntity<InstrumentSummary> getInstrumentById(
             @Parameter(description = "Instrument ID") @PathVariable Long id) {
         return instrumentService.getInstrumentById(id)
                 .map(ResponseEntity::ok)
@@ -69,6 +134,22 @@ public class InstrumentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Bulk import instruments",
+               description = "Imports instruments from a CSV (with header: name,brand,price,type,condition," +
+                             "stockQuantity,description,categoryId) or NDJSON body in batches. " +
+                             "Invalid rows are skipped and reported by line number")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import processed, see per-row errors")
+    })
+    public ResponseEntity<ImportResult> importInstruments(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        ImportFormat format = contentType.startsWith("text/csv") ? ImportFormat.CSV : ImportFormat.NDJSON;
+        ImportResult result = instrumentImportService.importInstruments(body, format);
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update instrument",
                description = "Updates an existing instrument")
@@ -101,57 +182,125 @@ public class InstrumentController {
     @GetMapping("/search")
     @Operation(summary = "Search instruments by name",
                description = "Searches for instruments containing the specified name")
-    public ResponseEntity<List<Instrument>> searchInstruments(
+    public ResponseEntity<List<InstrumentSummary>> searchInstruments(
             @Parameter(description = "Name to search") @RequestParam String name) {
-        List<Instrument> results = instrumentService.searchByName(name);
+        List<InstrumentSummary> results = instrumentService.searchByName(name);
         return ResponseEntity.ok(results);
     }
 
+    @GetMapping("/faceted-search")
+    @Operation(summary = "Faceted instrument search",
+               description = "Filters by any combination of text, type, condition, brand, category, price range " +
+                             "and stock in one query, and returns the result counts for every facet value")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed"),
+        @ApiResponse(responseCode = "400", description = "Invalid price range or sort field")
+    })
+    public ResponseEntity<FacetedSearchResult> facetedSearch(
+            @Parameter(description = "Text in name, brand or description") @RequestParam(required = false) String q,
+            @Parameter(description = "Instrument types") @RequestParam(required = false) Set<InstrumentType> type,
+            @Parameter(description = "Conditions") @RequestParam(required = false) Set<Condition> condition,
+            @Parameter(description = "Brands, case-insensitive") @RequestParam(required = false) Set<String> brand,
+            @Parameter(description = "Category IDs") @RequestParam(required = false) Set<Long> categoryId,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Only instruments with (true) or without (false) stock")
+            @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field (id, name, brand, price, stockQuantity, createdAt), " +
+                    "optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "name") String sort) {
+        InstrumentSearchCriteria criteria = new InstrumentSearchCriteria(q, type, condition, brand, categoryId,
+                minPrice, maxPrice, inStock);
+        try {
+            FacetedSearchResult results = instrumentSearchService.search(criteria, PageRequest.of(page, size, parseSort(sort)));
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/type/{type}")
     @Operation(summary = "Get instruments by type",
                description = "Returns instruments of a specific type")
-    public ResponseEntity<List<Instrument>> getInstrumentsByType(
+    public ResponseEntity<List<InstrumentSummary>> getInstrumentsByType(
             @Parameter(description = "Instrument type") @PathVariable InstrumentType type) {
-        List<Instrument> results = instrumentService.getInstrumentsByType(type);
+        List<InstrumentSummary> results = instrumentService.getInstrumentsByType(type);
         return ResponseEntity.ok(results);
     }
 
     @GetMapping("/price-range")
     @Operation(summary = "Search instruments by price range",
                description = "Searches for instruments within a price range")
-    public ResponseEntity<List<Instrument>> getInstrumentsByPriceRange(
+    public ResponseEntity<List<InstrumentSummary>> getInstrumentsByPriceRange(
             @Parameter(description = "Minimum price") @RequestParam BigDecimal minPrice,
             @Parameter(description = "Maximum price") @RequestParam BigDecimal maxPrice) {
-        List<Instrument> results = instrumentService.getInstrumentsByPriceRange(minPrice, maxPrice);
+        List<InstrumentSummary> results = instrumentService.getInstrumentsByPriceRange(minPrice, maxPrice);
         return ResponseEntity.ok(results);
     }
 
     @GetMapping("/in-stock")
     @Operation(summary = "Get instruments in stock",
                description = "Returns instruments that have stock available")
-    public ResponseEntity<List<Instrument>> getInStockInstruments() {
-        List<Instrument> results = instrumentService.getInStockInstruments();
+    public ResponseEntity<List<InstrumentSummary>> getInStockInstruments() {
+        List<InstrumentSummary> results = instrumentService.getInStockInstruments();
         return ResponseEntity.ok(results);
     }
 
     @GetMapping("/out-of-stock")
     @Operation(summary = "Get instruments out of stock",
                description = "Returns instruments that have no stock")
-    public ResponseEntity<List<Instrument>> getOutOfStockInstruments() {
-        List<Instrument> results = instrumentService.getOutOfStockInstruments();
+    public ResponseEntity<List<InstrumentSummary>> getOutOfStockInstruments() {
+        List<InstrumentSummary> results = instrumentService.getOutOfStockInstruments();
         return ResponseEntity.ok(results);
     }
 
     @GetMapping("/paginated")
     @Operation(summary = "Get paginated instruments",
                description = "Returns instruments with pagination support")
-    public ResponseEntity<Page<Instrument>> getInstrumentsPaginated(
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page obtained successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid page size or sort field")
+    })
+    public ResponseEntity<Page<InstrumentSummary>> getInstrumentsPaginated(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field") @RequestParam(defaultValue = "name") String sort) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
-        Page<Instrument> results = instrumentService.getInstrumentsPaginated(pageable);
-        return ResponseEntity.ok(results);
+            @Parameter(description = "Page size (at most 100)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field (id, name, brand, price, stockQuantity, createdAt), " +
+                    "optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "name") String sort) {
+        try {
+            Pageable pageable = PageRequest.of(page, size, parseSort(sort));
+            Page<InstrumentSummary> results = instrumentService.getInstrumentsPaginated(pageable);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Get instruments with cursor pagination",
+               description = "Returns instruments using keyset pagination. Pass the returned nextCursor " +
+                             "to get the following page; no total count is computed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page obtained successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid page size, sort field or cursor")
+    })
+    public ResponseEntity<CursorPage<RatedInstrumentSummary>> getInstrumentsByCursor(
+            @Parameter(description = "Page size (at most 100)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field (id, name, brand, price, stockQuantity, createdAt)")
+            @RequestParam(defaultValue = "name") String sort,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Include review count and average rating")
+            @RequestParam(defaultValue = "false") boolean includeRatings) {
+        try {
+            CursorPage<InstrumentSummary> results = instrumentService.getInstrumentsByCursor(sort, direction, size, cursor);
+            return ResponseEntity.ok(new CursorPage<>(instrumentRatings.rate(results.content(), includeRatings),
+                    results.size(), results.hasNext(), results.nextCursor()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PatchMapping("/{id}/stock")
@@ -190,4 +339,13 @@ public class InstrumentController {
         long count = instrumentService.getCountByType(type);
         return ResponseEntity.ok(count);
     }
+
+    /**
+     * "field" or "field,asc|desc", an unknown direction is a bad request
+     */
+    private static Sort parseSort(String sort) {
+        String[] parts = sort.split(",", 2);
+        return parts.length == 1 ? Sort.by(parts[0])
+                : Sort.by(Sort.Direction.fromString(parts[1].trim()), parts[0].trim());
+    }
 }
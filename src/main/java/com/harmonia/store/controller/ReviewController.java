@@ -0,0 +1,114 @@
+package com.harmonia.store.controller;
+
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.RatingSummary;
+import com.harmonia.store.dto.ReviewSummary;
+import com.harmonia.store.model.Review;
+import com.harmonia.store.service.ReviewService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/instruments/{instrumentId}")
+@Tag(name = "Reviews", description = "API for instrument reviews and ratings")
+@CrossOrigin(origins = "*")
+public class ReviewController {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @GetMapping("/reviews")
+    @Operation(summary = "Get reviews of an instrument",
+               description = "Returns reviews newest first using keyset pagination. Pass the returned " +
+                             "nextCursor to get the following page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page obtained successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid page size or cursor"),
+        @ApiResponse(responseCode = "404", description = "Instrument not found")
+    })
+    public ResponseEntity<CursorPage<ReviewSummary>> getReviews(
+            @Parameter(description = "Instrument ID") @PathVariable Long instrumentId,
+            @Parameter(description = "Page size (at most 100)") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor returned by the previous page") @RequestParam(required = false) String cursor) {
+        try {
+            return reviewService.getReviews(instrumentId, size, cursor)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/rating")
+    @Operation(summary = "Get rating summary of an instrument",
+               description = "Returns the number of reviews, the average rating and the number of reviews per star")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rating summary found"),
+        @ApiResponse(responseCode = "404", description = "Instrument not found")
+    })
+    public ResponseEntity<RatingSummary> getRatingSummary(
+            @Parameter(description = "Instrument ID") @PathVariable Long instrumentId) {
+        return reviewService.getRatingSummary(instrumentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reviews")
+    @Operation(summary = "Add review",
+               description = "Adds a review to an instrument and updates its rating summary")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Review created successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid data"),
+        @ApiResponse(responseCode = "404", description = "Instrument not found")
+    })
+    public ResponseEntity<ReviewSummary> addReview(
+            @Parameter(description = "Instrument ID") @PathVariable Long instrumentId,
+            @Parameter(description = "Review data") @Valid @RequestBody Review review) {
+        return reviewService.addReview(instrumentId, review)
+                .map(ReviewSummary::from)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/reviews/{reviewId}")
+    @Operation(summary = "Update review",
+               description = "Updates the comment, rating and author of a review")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Review updated"),
+        @ApiResponse(responseCode = "400", description = "Invalid data"),
+        @ApiResponse(responseCode = "404", description = "Review not found")
+    })
+    public ResponseEntity<ReviewSummary> updateReview(
+            @Parameter(description = "Instrument ID") @PathVariable Long instrumentId,
+            @Parameter(description = "Review ID") @PathVariable Long reviewId,
+            @Parameter(description = "Updated review data") @Valid @RequestBody Review review) {
+        return reviewService.updateReview(instrumentId, reviewId, review)
+                .map(ReviewSummary::from)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/reviews/{reviewId}")
+    @Operation(summary = "Delete review",
+               description = "Deletes a review and updates the instrument's rating summary")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Review deleted"),
+        @ApiResponse(responseCode = "404", description = "Review not found")
+    })
+    public ResponseEntity<Void> deleteReview(
+            @Parameter(description = "Instrument ID") @PathVariable Long instrumentId,
+            @Parameter(description = "Review ID") @PathVariable Long reviewId) {
+        return reviewService.deleteReview(instrumentId, reviewId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.harmonia.store.controller;
+
+import com.harmonia.store.dto.CatalogStatistics;
+import com.harmonia.store.service.CatalogStatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/statistics")
+@Tag(name = "Statistics", description = "API for catalog and customer statistics")
+@CrossOrigin(origins = "*")
+public class StatisticsController {
+
+    @Autowired
+    private CatalogStatisticsService statisticsService;
+
+    @GetMapping("/")
+    @Operation(summary = "Get catalog statistics",
+               description = "Returns instrument counts by type, condition and category, stock totals, " +
+                             "a price histogram, review ratings and customer counts by status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics obtained successfully")
+    })
+    public ResponseEntity<CatalogStatistics> getStatistics() {
+        return ResponseEntity.ok(statisticsService.getStatistics());
+    }
+}
@@ -0,0 +1,88 @@
+package com.harmonia.store.controller;
+
+import com.harmonia.store.model.StockReservation;
+import com.harmonia.store.service.StockReservationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+@Tag(name = "Stock reservations", description = "API for reserving, committing and releasing instrument stock")
+@CrossOrigin(origins = "*")
+public class StockReservationController {
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @PostMapping("/")
+    @Operation(summary = "Reserve stock",
+               description = "Atomically takes stock of an instrument until the reservation is committed, released or expires")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Stock reserved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid quantity"),
+        @ApiResponse(responseCode = "404", description = "Instrument not found"),
+        @ApiResponse(responseCode = "409", description = "Not enough stock")
+    })
+    public ResponseEntity<StockReservation> reserve(
+            @Parameter(description = "Instrument ID") @RequestParam Long instrumentId,
+            @Parameter(description = "Quantity to reserve") @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return reservationService.reserve(instrumentId, quantity)
+                    .map(reservation -> ResponseEntity.status(HttpStatus.CREATED).body(reservation))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get reservation by ID",
+               description = "Returns a specific stock reservation")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reservation found"),
+        @ApiResponse(responseCode = "404", description = "Reservation not found")
+    })
+    public ResponseEntity<StockReservation> getReservationById(
+            @Parameter(description = "Reservation ID") @PathVariable Long id) {
+        return reservationService.getReservationById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/commit")
+    @Operation(summary = "Commit reservation",
+               description = "Confirms the reservation, the reserved stock is sold")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reservation committed"),
+        @ApiResponse(responseCode = "404", description = "Reservation not found"),
+        @ApiResponse(responseCode = "409", description = "Reservation already committed, released or expired")
+    })
+    public ResponseEntity<StockReservation> commit(
+            @Parameter(description = "Reservation ID") @PathVariable Long id) {
+        return reservationService.commit(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/release")
+    @Operation(summary = "Release reservation",
+               description = "Cancels the reservation and returns its stock")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reservation released"),
+        @ApiResponse(responseCode = "404", description = "Reservation not found"),
+        @ApiResponse(responseCode = "409", description = "Reservation already committed, released or expired")
+    })
+    public ResponseEntity<StockReservation> release(
+            @Parameter(description = "Reservation ID") @PathVariable Long id) {
+        return reservationService.release(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,148 @@
+package com.harmonia.store.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether read-only transactions may use the replica.
+ *
+ * Every heartbeat writes the current time to the primary and reads the
+ * newest time that has reached the replica. The replica is used while that
+ * read succeeds and it is at most maxLag behind, and only once it has caught
+ * up with the last write this node has seen: commits on this node and
+ * invalidations from other nodes move a write fence, and reads stay on the
+ * primary until a heartbeat written after the fence is visible on the
+ * replica. Caches and snapshots reloaded right after a write therefore never
+ * pick up data older than that write.
+ *
+ * Node clocks are assumed to be in sync.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final String UPDATE = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String INSERT = "INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, ?)";
+    private static final String SELECT = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    // Commits the heartbeat itself, the pool may hand out connections with auto-commit off
+    private final TransactionTemplate primaryTransaction;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    // Newest heartbeat seen on the replica, epoch milliseconds
+    private volatile long replicatedUpTo = -1;
+    private volatile long lagMillis = -1;
+    private volatile boolean healthy;
+    private final AtomicLong writeFence = new AtomicLong();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.primaryTransaction = new TransactionTemplate(new DataSourceTransactionManager(primary));
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.heartbeat-interval:PT1S}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            primaryTransaction.executeWithoutResult(status -> {
+                if (primary.update(UPDATE, now) == 0) {
+                    primary.update(INSERT, now);
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // Another node inserting the row first, or the primary is down; the check below still applies
+            log.debug("Could not write replication heartbeat: {}", e.getMessage());
+        }
+        check();
+    }
+
+    /**
+     * Read the newest heartbeat from the replica and update the lag
+     */
+    public void check() {
+        boolean wasHealthy = healthy;
+        String problem;
+        try {
+            Long beat = replica.queryForObject(SELECT, Long.class);
+            replicatedUpTo = beat == null ? -1 : beat;
+            lagMillis = System.currentTimeMillis() - replicatedUpTo;
+            healthy = lagMillis <= maxLagMillis;
+            problem = "lag " + lagMillis + "ms";
+        } catch (DataAccessException e) {
+            healthy = false;
+            problem = e.getMessage();
+        }
+        if (healthy && !wasHealthy) {
+            log.info("Replica caught up ({}), read-only transactions use it", problem);
+        } else if (!healthy && wasHealthy) {
+            log.warn("Replica unusable, read-only transactions use the primary: {}", problem);
+        }
+    }
+
+    /**
+     * Whether a read-only transaction starting now may use the replica
+     */
+    public boolean isReplicaUsable() {
+        return healthy && replicatedUpTo >= writeFence.get();
+    }
+
+    /**
+     * Keep reads on the primary until the replica has what was written so far
+     */
+    public void recordWrite() {
+        writeFence.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    void recordRead(boolean fromReplica) {
+        (fromReplica ? replicaReads : primaryReads).increment();
+    }
+
+    void replicaFailed(Exception e) {
+        if (healthy) {
+            healthy = false;
+            log.warn("Could not connect to the replica, read-only transactions use the primary: {}", e.getMessage());
+        }
+    }
+
+    public Duration getLag() {
+        return lagMillis < 0 ? null : Duration.ofMillis(lagMillis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("datasource.replica.lag", this, TimeUnit.MILLISECONDS, monitor -> monitor.lagMillis)
+                .description("How far the replica was behind the primary at the last heartbeat")
+                .register(registry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+                .register(registry);
+        FunctionCounter.builder("datasource.reads", replicaReads, LongAdder::sum)
+                .description("Read-only transactions by the database they were routed to")
+                .tag("target", "replica")
+                .register(registry);
+        FunctionCounter.builder("datasource.reads", primaryReads, LongAdder::sum)
+                .tag("target", "primary")
+                .register(registry);
+    }
+}
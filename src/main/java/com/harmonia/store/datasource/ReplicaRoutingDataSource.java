@@ -0,0 +1,75 @@
+package com.harmonia.store.datasource;
+
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Hands out replica connections to read-only transactions while the
+ * ReplicaLagMonitor allows it, primary connections to everything else.
+ * Read-only transactions also use the primary when no replica connection
+ * can be obtained.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy: transaction managers
+ * fetch their connection before the transaction is marked read-only, the
+ * proxy defers fetching it until the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (monitor.isReplicaUsable()) {
+                try {
+                    Connection connection = replica.getConnection();
+                    monitor.recordRead(true);
+                    return connection;
+                } catch (SQLException e) {
+                    monitor.replicaFailed(e);
+                }
+            }
+            monitor.recordRead(false);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new WriteFence());
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    /**
+     * Moves the monitor's write fence once the transaction has committed,
+     * before any after-commit listener reloads what it wrote
+     */
+    private final class WriteFence implements TransactionSynchronization {
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            monitor.recordWrite();
+        }
+    }
+}
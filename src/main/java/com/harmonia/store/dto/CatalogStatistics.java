@@ -0,0 +1,34 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.CustomerStatus;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the catalog statistics counters
+ */
+public record CatalogStatistics(long instrumentCount,
+                                Map<InstrumentType, Long> instrumentsByType,
+                                Map<Condition, Long> instrumentsByCondition,
+                                Map<Long, Long> instrumentsByCategory,
+                                long stockUnits,
+                                BigDecimal stockValue,
+                                List<PriceBucket> priceHistogram,
+                                long reviewCount,
+                                Double averageRating,
+                                Map<Integer, Long> reviewsByRating,
+                                long customerCount,
+                                Map<CustomerStatus, Long> customersByStatus,
+                                LocalDateTime reconciledAt) {
+
+    /**
+     * Instruments priced in [from, to), to is null for the last bucket
+     */
+    public record PriceBucket(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.harmonia.store.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Pass nextCursor back to fetch the
+ * following page; it is null on the last page. No total count is computed.
+ */
+public record CursorPage<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+}
@@ -0,0 +1,30 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.CustomerStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of a customer without their reviews
+ */
+public record CustomerSummary(Long id,
+                              String firstName,
+                              String lastName,
+                              String email,
+                              String phone,
+                              String address,
+                              BigDecimal totalPurchases,
+                              Integer loyaltyPoints,
+                              CustomerStatus status,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt) {
+
+    public static CustomerSummary from(Customer customer) {
+        return new CustomerSummary(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhone(), customer.getAddress(),
+                customer.getTotalPurchases(), customer.getLoyaltyPoints(), customer.getStatus(),
+                customer.getCreatedAt(), customer.getUpdatedAt());
+    }
+}
@@ -0,0 +1,9 @@
+package com.harmonia.store.dto;
+
+import org.springframework.data.domain.Page;
+
+/**
+ * One page of matching instruments and the facet counts of the whole result
+ */
+public record FacetedSearchResult(Page<InstrumentSummary> results, InstrumentFacets facets) {
+}
@@ -0,0 +1,13 @@
+package com.harmonia.store.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Errors are reported per input line (1-based,
+ * header included) up to app.import.max-reported-errors.
+ */
+public record ImportResult(long received, long imported, long failed, List<RowError> errors) {
+
+    public record RowError(long line, String message) {
+    }
+}
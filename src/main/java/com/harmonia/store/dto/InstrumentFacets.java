@@ -0,0 +1,20 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result counts per facet value. Each dimension is counted with all other
+ * filters applied but not its own.
+ */
+public record InstrumentFacets(Map<InstrumentType, Long> types,
+                               Map<Condition, Long> conditions,
+                               Map<String, Long> brands,
+                               Map<Long, Long> categories,
+                               List<CatalogStatistics.PriceBucket> prices,
+                               long inStock,
+                               long outOfStock) {
+}
@@ -0,0 +1,19 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+
+/**
+ * One instrument as read from a CSV line or NDJSON object during bulk import
+ */
+public record InstrumentImportRow(String name,
+                                  String brand,
+                                  BigDecimal price,
+                                  InstrumentType type,
+                                  Condition condition,
+                                  Integer stockQuantity,
+                                  String description,
+                                  Long categoryId) {
+}
@@ -0,0 +1,21 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filters of a faceted instrument search. Empty or null filters are not
+ * applied, several values of one filter match any of them.
+ */
+public record InstrumentSearchCriteria(String text,
+                                       Set<InstrumentType> types,
+                                       Set<Condition> conditions,
+                                       Set<String> brands,
+                                       Set<Long> categoryIds,
+                                       BigDecimal minPrice,
+                                       BigDecimal maxPrice,
+                                       Boolean inStock) {
+}
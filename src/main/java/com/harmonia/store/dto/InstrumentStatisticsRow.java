@@ -0,0 +1,18 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+
+/**
+ * One group of the statistics reconciliation query: instruments sharing
+ * type, condition, category and price
+ */
+public record InstrumentStatisticsRow(InstrumentType type,
+                                      Condition condition,
+                                      Long categoryId,
+                                      BigDecimal price,
+                                      Long count,
+                                      Long stockQuantity) {
+}
@@ -0,0 +1,36 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of an instrument without its lazy associations
+ */
+public record InstrumentSummary(Long id,
+                                String name,
+                                String brand,
+                                BigDecimal price,
+                                InstrumentType type,
+                                Condition condition,
+                                String description,
+                                Integer stockQuantity,
+                                Long categoryId,
+                                String categoryName,
+                                LocalDateTime createdAt,
+                                LocalDateTime updatedAt) {
+
+    public static InstrumentSummary from(Instrument instrument) {
+        Category category = instrument.getCategory();
+        return new InstrumentSummary(instrument.getId(), instrument.getName(), instrument.getBrand(),
+                instrument.getPrice(), instrument.getType(), instrument.getCondition(),
+                instrument.getDescription(), instrument.getStockQuantity(),
+                category != null ? category.getId() : null,
+                category != null ? category.getName() : null,
+                instrument.getCreatedAt(), instrument.getUpdatedAt());
+    }
+}
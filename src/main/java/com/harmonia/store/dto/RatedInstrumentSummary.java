@@ -0,0 +1,25 @@
+package com.harmonia.store.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Instrument with its review count and average rating inlined. Without
+ * ratings both are null and it serializes exactly like the summary.
+ */
+public record RatedInstrumentSummary(@JsonUnwrapped InstrumentSummary instrument,
+                                     Long reviewCount,
+                                     Double averageRating) {
+
+    /**
+     * With the given rating, null meaning no reviews
+     */
+    public static RatedInstrumentSummary of(InstrumentSummary instrument, RatingSummary rating) {
+        return rating != null
+                ? new RatedInstrumentSummary(instrument, rating.reviewCount(), rating.averageRating())
+                : new RatedInstrumentSummary(instrument, 0L, null);
+    }
+
+    public static RatedInstrumentSummary unrated(InstrumentSummary instrument) {
+        return new RatedInstrumentSummary(instrument, null, null);
+    }
+}
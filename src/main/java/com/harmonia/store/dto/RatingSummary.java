@@ -0,0 +1,31 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.InstrumentRatingSummary;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ratings of one instrument: number of reviews, average (null without
+ * reviews) and the number of reviews per star rating
+ */
+public record RatingSummary(Long instrumentId,
+                            long reviewCount,
+                            Double averageRating,
+                            Map<Integer, Long> reviewsByRating) {
+
+    public static RatingSummary of(InstrumentRatingSummary summary) {
+        long[] histogram = summary.histogram();
+        Map<Integer, Long> reviewsByRating = new TreeMap<>();
+        for (int rating = 1; rating < histogram.length; rating++) {
+            reviewsByRating.put(rating, histogram[rating]);
+        }
+        long count = summary.getReviewCount();
+        return new RatingSummary(summary.getInstrumentId(), count,
+                count > 0 ? (double) summary.getRatingTotal() / count : null, reviewsByRating);
+    }
+
+    public static RatingSummary empty(Long instrumentId) {
+        return of(new InstrumentRatingSummary(instrumentId));
+    }
+}
@@ -0,0 +1,21 @@
+package com.harmonia.store.dto;
+
+import com.harmonia.store.model.Review;
+
+import java.time.LocalDateTime;
+
+/**
+ * Public view of a review, without the author's email
+ */
+public record ReviewSummary(Long id,
+                            String comment,
+                            Integer rating,
+                            String authorName,
+                            LocalDateTime createdAt,
+                            LocalDateTime updatedAt) {
+
+    public static ReviewSummary from(Review review) {
+        return new ReviewSummary(review.getId(), review.getComment(), review.getRating(),
+                review.getAuthorName(), review.getCreatedAt(), review.getUpdatedAt());
+    }
+}
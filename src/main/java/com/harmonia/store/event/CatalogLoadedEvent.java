@@ -0,0 +1,9 @@
+package com.harmonia.store.event;
+
+/**
+ * Published once during startup, after sample data seeding, when the
+ * database content is in place for the in-memory indexes to be built from.
+ * seeded tells whether sample data was inserted.
+ */
+public record CatalogLoadedEvent(boolean seeded) {
+}
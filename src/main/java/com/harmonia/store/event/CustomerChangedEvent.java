@@ -0,0 +1,10 @@
+package com.harmonia.store.event;
+
+import com.harmonia.store.model.CustomerStatus;
+
+/**
+ * Published by customer writes that can change the customer counts.
+ * before is null for an insert and after is null for a delete.
+ */
+public record CustomerChangedEvent(Long customerId, CustomerStatus before, CustomerStatus after) {
+}
@@ -0,0 +1,10 @@
+package com.harmonia.store.event;
+
+import com.harmonia.store.service.InstrumentSnapshot;
+
+/**
+ * Published by instrument writes. before is null for an insert and after
+ * is null for a delete.
+ */
+public record InstrumentChangedEvent(InstrumentSnapshot before, InstrumentSnapshot after) {
+}
@@ -0,0 +1,8 @@
+package com.harmonia.store.event;
+
+/**
+ * Published by review writes. ratingBefore is null for an insert and
+ * ratingAfter is null for a delete.
+ */
+public record ReviewChangedEvent(Long instrumentId, Integer ratingBefore, Integer ratingAfter) {
+}
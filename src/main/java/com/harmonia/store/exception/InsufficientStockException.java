@@ -0,0 +1,12 @@
+package com.harmonia.store.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(Long instrumentId, int quantity) {
+        super("Not enough stock of instrument " + instrumentId + " to reserve " + quantity);
+    }
+}
@@ -0,0 +1,13 @@
+package com.harmonia.store.exception;
+
+import com.harmonia.store.model.ReservationStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InvalidReservationStateException extends RuntimeException {
+
+    public InvalidReservationStateException(Long reservationId, ReservationStatus status) {
+        super("Reservation " + reservationId + " is " + status);
+    }
+}
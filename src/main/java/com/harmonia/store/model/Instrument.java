@@ -5,20 +5,32 @@ import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "instruments")
+// One index per keyset-sortable column, with the id tie-breaker, so cursor pages seek instead of sorting
+@Table(name = "instruments", indexes = {
+        @Index(name = "idx_instrument_name", columnList = "name, id"),
+        @Index(name = "idx_instrument_brand", columnList = "brand, id"),
+        @Index(name = "idx_instrument_price", columnList = "price, id"),
+        @Index(name = "idx_instrument_stock", columnList = "stock_quantity, id"),
+        @Index(name = "idx_instrument_created", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Instrument {
 
+    // Pooled sequence ids so bulk inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "instrument_seq")
+    @SequenceGenerator(name = "instrument_seq", sequenceName = "instrument_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Instrument name is required")
@@ -58,9 +70,14 @@ public class Instrument {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Category category;
     
     @OneToMany(mappedBy = "instrument", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<Review> reviews = new HashSet<>();
     
     @PrePersist
@@ -0,0 +1,59 @@
+package com.harmonia.store.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Review count, rating total and star histogram of one instrument, kept in
+ * step with its reviews by ReviewService so ratings are read without
+ * touching the reviews table
+ */
+@Entity
+@Table(name = "instrument_rating_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InstrumentRatingSummary {
+
+    @Id
+    @Column(name = "instrument_id")
+    private Long instrumentId;
+
+    @Column(nullable = false)
+    private long reviewCount;
+
+    @Column(nullable = false)
+    private long ratingTotal;
+
+    @Column(nullable = false)
+    private long oneStar;
+
+    @Column(nullable = false)
+    private long twoStars;
+
+    @Column(nullable = false)
+    private long threeStars;
+
+    @Column(nullable = false)
+    private long fourStars;
+
+    @Column(nullable = false)
+    private long fiveStars;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public InstrumentRatingSummary(Long instrumentId) {
+        this.instrumentId = instrumentId;
+    }
+
+    /**
+     * Reviews per rating, index 0 is unused
+     */
+    public long[] histogram() {
+        return new long[]{0, oneStar, twoStars, threeStars, fourStars, fiveStars};
+    }
+}
@@ -0,0 +1,26 @@
+package com.harmonia.store.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row written to the primary by ReplicaLagMonitor and read back from
+ * the replica to measure how far replication is behind. Mapped so the
+ * schema is created with the other tables, never used through JPA.
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReplicationHeartbeat {
+
+    @Id
+    private Integer id;
+
+    // Writer's clock in epoch milliseconds
+    @Column(name = "beat_at", nullable = false)
+    private long beatAt;
+}
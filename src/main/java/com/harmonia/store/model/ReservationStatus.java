@@ -0,0 +1,8 @@
+package com.harmonia.store.model;
+
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED,
+    EXPIRED;
+}
@@ -2,11 +2,16 @@ package com.harmonia.store.repository;
 
 import com.harmonia.store.model.Customer;
 import com.harmonia.store.model.CustomerStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -18,4 +23,15 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByStatus(CustomerStatus status);
     
     List<Customer> findByLoyaltyPointsGreaterThanEqual(Integer minPoints);
+
+    // Statistics reconciliation: [status, count] pairs
+    @Query("select c.status, count(c) from Customer c group by c.status")
+    List<Object[]> countGroupedByStatus();
+
+    // Export: read-only cursor over all rows
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Customer> streamAllBy();
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.harmonia.store.repository;
+
+import com.harmonia.store.model.InstrumentRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InstrumentRatingSummaryRepository extends JpaRepository<InstrumentRatingSummary, Long> {
+
+    // Atomic increment of the counters, returns 0 if the instrument has no summary row yet
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update InstrumentRatingSummary s set s.reviewCount = s.reviewCount + :count, " +
+           "s.ratingTotal = s.ratingTotal + :total, s.oneStar = s.oneStar + :one, s.twoStars = s.twoStars + :two, " +
+           "s.threeStars = s.threeStars + :three, s.fourStars = s.fourStars + :four, " +
+           "s.fiveStars = s.fiveStars + :five, s.updatedAt = :now where s.instrumentId = :instrumentId")
+    int addCounts(@Param("instrumentId") Long instrumentId, @Param("count") long count, @Param("total") long total,
+                  @Param("one") long one, @Param("two") long two, @Param("three") long three,
+                  @Param("four") long four, @Param("five") long five, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from InstrumentRatingSummary s")
+    int deleteAllSummaries();
+
+    // Rebuild every summary from the reviews table
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("insert into InstrumentRatingSummary (instrumentId, reviewCount, ratingTotal, oneStar, twoStars, " +
+           "threeStars, fourStars, fiveStars, updatedAt) " +
+           "select r.instrument.id, count(r), sum(r.rating), " +
+           "sum(case when r.rating = 1 then 1 else 0 end), sum(case when r.rating = 2 then 1 else 0 end), " +
+           "sum(case when r.rating = 3 then 1 else 0 end), sum(case when r.rating = 4 then 1 else 0 end), " +
+           "sum(case when r.rating = 5 then 1 else 0 end), :now " +
+           "from Review r group by r.instrument.id")
+    int insertFromReviews(@Param("now") LocalDateTime now);
+}
@@ -1,27 +1,119 @@
 package com.harmonia.store.repository;
 
+import com.harmonia.store.dto.InstrumentStatisticsRow;
+import com.harmonia.store.dto.InstrumentSummary;
 import com.harmonia.store.model.Instrument;
 import com.harmonia.store.model.InstrumentType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.JoinType;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface InstrumentRepository extends JpaRepository<Instrument, Long> {
+public interface InstrumentRepository extends JpaRepository<Instrument, Long>, JpaSpecificationExecutor<Instrument> {
     
+    // Read-side projections: one statement each, the category is joined in
+    // the same select so no lazy association is touched while serializing
+    String SUMMARY = "select new com.harmonia.store.dto.InstrumentSummary(i.id, i.name, i.brand, i.price, " +
+                     "i.type, i.condition, i.description, i.stockQuantity, c.id, c.name, i.createdAt, i.updatedAt) " +
+                     "from Instrument i left join i.category c ";
+
+    @Query(SUMMARY + "order by i.id")
+    List<InstrumentSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where i.id = :id")
+    Optional<InstrumentSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY + "where i.id in :ids")
+    List<InstrumentSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = SUMMARY, countQuery = "select count(i) from Instrument i")
+    Page<InstrumentSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Specification fetch-joining the category, for entity queries whose
+     * rows are mapped to summaries. Count queries are left without the fetch.
+     */
+    static Specification<Instrument> withCategory() {
+        return (root, query, builder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("category", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
     // Basic searches
     List<Instrument> findByNameContainingIgnoreCase(String name);
-    List<Instrument> findByType(InstrumentType type);
+
+    @Query(SUMMARY + "where i.type = :type order by i.id")
+    List<InstrumentSummary> findSummariesByType(@Param("type") InstrumentType type);
     
     // Stock queries
-    List<Instrument> findByStockQuantityGreaterThan(Integer quantity);
-    List<Instrument> findByStockQuantityLessThanEqual(Integer quantity);
+    @Query(SUMMARY + "where i.stockQuantity > :quantity order by i.price, i.id")
+    List<InstrumentSummary> findSummariesByStockQuantityGreaterThan(@Param("quantity") Integer quantity);
+
+    @Query(SUMMARY + "where i.stockQuantity <= :quantity order by i.price, i.id")
+    List<InstrumentSummary> findSummariesByStockQuantityLessThanEqual(@Param("quantity") Integer quantity);
     
     // Price searches
-    List<Instrument> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+    @Query(SUMMARY + "where i.price between :minPrice and :maxPrice order by i.price, i.id")
+    List<InstrumentSummary> findSummariesByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                                       @Param("maxPrice") BigDecimal maxPrice);
     
-    // Basic statistical methods
-    long countByType(InstrumentType type);
+    // Atomic stock updates, return the number of rows changed. They bypass the persistence context,
+    // callers re-read the instrument they already loaded
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Instrument i set i.stockQuantity = i.stockQuantity - :quantity, i.updatedAt = :now " +
+           "where i.id = :id and i.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Instrument i set i.stockQuantity = i.stockQuantity + :quantity, i.updatedAt = :now where i.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update Instrument i set i.stockQuantity = :quantity, i.updatedAt = :now where i.id = :id")
+    int setStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    // Statistics reconciliation: one row per distinct type, condition, category and price
+    @Query("select new com.harmonia.store.dto.InstrumentStatisticsRow(i.type, i.condition, c.id, i.price, " +
+           "count(i), sum(i.stockQuantity)) from Instrument i left join i.category c " +
+           "group by i.type, i.condition, c.id, i.price")
+    List<InstrumentStatisticsRow> aggregateStatistics();
+
+    // Export: read-only cursor over all rows with the category joined
+    @EntityGraph(attributePaths = "category")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Instrument> streamAllBy();
+
+    // Row lock serializing the creation of the instrument's rating summary, and stock changes in updateStock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Instrument> findLockedById(Long id);
 }
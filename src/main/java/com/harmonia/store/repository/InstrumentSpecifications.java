@@ -0,0 +1,60 @@
+package com.harmonia.store.repository;
+
+import com.harmonia.store.dto.InstrumentSearchCriteria;
+import com.harmonia.store.model.Instrument;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Criteria predicates for instrument searches, combined into a single query
+ */
+public final class InstrumentSpecifications {
+
+    private InstrumentSpecifications() {
+    }
+
+    /**
+     * All criteria filters ANDed, restricted to the given IDs when not null
+     * (the text matches from the search index)
+     */
+    public static Specification<Instrument> matching(InstrumentSearchCriteria criteria, Collection<Long> ids) {
+        Specification<Instrument> spec = Specification.where(null);
+        if (ids != null) {
+            spec = spec.and(idIn(ids));
+        }
+        if (criteria.types() != null && !criteria.types().isEmpty()) {
+            spec = spec.and((root, query, builder) -> root.get("type").in(criteria.types()));
+        }
+        if (criteria.conditions() != null && !criteria.conditions().isEmpty()) {
+            spec = spec.and((root, query, builder) -> root.get("condition").in(criteria.conditions()));
+        }
+        if (criteria.brands() != null && !criteria.brands().isEmpty()) {
+            Collection<String> brands = criteria.brands().stream()
+                    .map(brand -> brand.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+            spec = spec.and((root, query, builder) -> builder.lower(root.get("brand")).in(brands));
+        }
+        if (criteria.categoryIds() != null && !criteria.categoryIds().isEmpty()) {
+            spec = spec.and((root, query, builder) -> root.get("category").get("id").in(criteria.categoryIds()));
+        }
+        if (criteria.minPrice() != null) {
+            spec = spec.and((root, query, builder) -> builder.greaterThanOrEqualTo(root.get("price"), criteria.minPrice()));
+        }
+        if (criteria.maxPrice() != null) {
+            spec = spec.and((root, query, builder) -> builder.lessThanOrEqualTo(root.get("price"), criteria.maxPrice()));
+        }
+        if (criteria.inStock() != null) {
+            spec = spec.and(criteria.inStock()
+                    ? (root, query, builder) -> builder.greaterThan(root.get("stockQuantity"), 0)
+                    : (root, query, builder) -> builder.lessThanOrEqualTo(root.get("stockQuantity"), 0));
+        }
+        return spec;
+    }
+
+    public static Specification<Instrument> idIn(Collection<Long> ids) {
+        return (root, query, builder) -> root.get("id").in(ids);
+    }
+}
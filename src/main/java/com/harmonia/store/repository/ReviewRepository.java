@@ -2,8 +2,16 @@ package com.harmonia.store.repository;
 
 import com.harmonia.store.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
-} 
\ No newline at end of file
+public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
+
+    // Statistics reconciliation: [rating, count] pairs
+    @Query("select r.rating, count(r) from Review r group by r.rating")
+    List<Object[]> countGroupedByRating();
+}
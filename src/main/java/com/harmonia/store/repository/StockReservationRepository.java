@@ -0,0 +1,24 @@
+package com.harmonia.store.repository;
+
+import com.harmonia.store.model.ReservationStatus;
+import com.harmonia.store.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findTop500ByStatusAndExpiresAtBefore(ReservationStatus status, LocalDateTime time);
+
+    // Compare-and-set of the status, returns 0 if the reservation was not in the expected state
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :to, r.updatedAt = :now where r.id = :id and r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") ReservationStatus from,
+                   @Param("to") ReservationStatus to, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,263 @@
+package com.harmonia.store.search;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index for faceted filtering and counting.
+ *
+ * Every document gets a dense ordinal. Each value of a term dimension keeps
+ * a BitSet of the ordinals holding it, and range dimensions keep one long
+ * per ordinal. A query ANDs the bitmaps of the selected values; the counts
+ * of a dimension are taken with every filter applied except its own, so a
+ * client can see how many results each alternative value would give.
+ */
+public class FacetIndex {
+
+    // Range value of documents without one, never matches a range filter
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final Map<String, long[]> bucketBounds;
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private int nextOrdinal;
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<Object, BitSet>> terms = new HashMap<>();
+    private final Map<String, long[]> ranges = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param termDimensions  dimensions holding one discrete value per document
+     * @param rangeDimensions numeric dimensions with the upper bounds of their
+     *                        count buckets, the last bucket is open
+     */
+    public FacetIndex(Collection<String> termDimensions, Map<String, long[]> rangeDimensions) {
+        termDimensions.forEach(dimension -> terms.put(dimension, new HashMap<>()));
+        this.bucketBounds = new HashMap<>();
+        rangeDimensions.forEach((dimension, bounds) -> {
+            long[] sorted = bounds.clone();
+            Arrays.sort(sorted);
+            bucketBounds.put(dimension, sorted);
+            ranges.put(dimension, new long[0]);
+        });
+    }
+
+    /**
+     * Add or replace a document. Null values leave the document out of
+     * that dimension.
+     */
+    public void index(Long id, Map<String, ?> termValues, Map<String, Long> rangeValues) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            ordinals.put(id, ordinal);
+            live.set(ordinal);
+            terms.forEach((dimension, values) -> {
+                Object value = termValues.get(dimension);
+                if (value != null) {
+                    values.computeIfAbsent(value, key -> new BitSet()).set(ordinal);
+                }
+            });
+            ranges.replaceAll((dimension, values) -> {
+                long[] grown = values.length > ordinal ? values
+                        : Arrays.copyOf(values, Math.max(ordinal + 1, values.length * 2));
+                Long value = rangeValues.get(dimension);
+                grown[ordinal] = value != null ? value : MISSING;
+                return grown;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A new empty index with the same dimensions and buckets, to be filled
+     * and swapped in while this one keeps serving queries
+     */
+    public FacetIndex emptyCopy() {
+        return new FacetIndex(terms.keySet(), bucketBounds);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct values currently held by a term dimension
+     */
+    public Set<Object> values(String dimension) {
+        lock.readLock().lock();
+        try {
+            Set<Object> values = new HashSet<>();
+            terms.get(dimension).forEach((value, bits) -> {
+                if (!bits.isEmpty()) {
+                    values.add(value);
+                }
+            });
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] bucketBounds(String dimension) {
+        return bucketBounds.get(dimension).clone();
+    }
+
+    /**
+     * Count the matching documents and the facet values of every dimension
+     */
+    public Result query(Query query) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (query.ids() != null) {
+                BitSet restricted = new BitSet();
+                for (Long id : query.ids()) {
+                    Integer ordinal = ordinals.get(id);
+                    if (ordinal != null) {
+                        restricted.set(ordinal);
+                    }
+                }
+                base.and(restricted);
+            }
+
+            Map<String, BitSet> filters = new LinkedHashMap<>();
+            query.terms().forEach((dimension, selected) -> {
+                if (selected != null && !selected.isEmpty()) {
+                    BitSet union = new BitSet();
+                    for (Object value : selected) {
+                        BitSet bits = terms.get(dimension).get(value);
+                        if (bits != null) {
+                            union.or(bits);
+                        }
+                    }
+                    filters.put(dimension, union);
+                }
+            });
+            query.ranges().forEach((dimension, range) -> {
+                if (range != null && (range.min() != null || range.max() != null)) {
+                    filters.put(dimension, inRange(ranges.get(dimension), range));
+                }
+            });
+
+            BitSet matches = (BitSet) base.clone();
+            filters.values().forEach(matches::and);
+
+            Map<String, Map<Object, Long>> termCounts = new HashMap<>();
+            terms.forEach((dimension, values) -> {
+                BitSet mask = maskExcept(base, filters, dimension);
+                Map<Object, Long> counts = new HashMap<>();
+                values.forEach((value, bits) -> {
+                    BitSet both = (BitSet) mask.clone();
+                    both.and(bits);
+                    if (!both.isEmpty()) {
+                        counts.put(value, (long) both.cardinality());
+                    }
+                });
+                termCounts.put(dimension, counts);
+            });
+
+            Map<String, long[]> rangeCounts = new HashMap<>();
+            ranges.forEach((dimension, values) -> {
+                long[] bounds = bucketBounds.get(dimension);
+                long[] counts = new long[bounds.length + 1];
+                BitSet mask = maskExcept(base, filters, dimension);
+                for (int ordinal = mask.nextSetBit(0); ordinal >= 0; ordinal = mask.nextSetBit(ordinal + 1)) {
+                    if (values[ordinal] != MISSING) {
+                        int index = Arrays.binarySearch(bounds, values[ordinal]);
+                        // An exact bound starts the next bucket
+                        counts[index >= 0 ? index + 1 : -index - 1]++;
+                    }
+                }
+                rangeCounts.put(dimension, counts);
+            });
+            return new Result(matches.cardinality(), termCounts, rangeCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet inRange(long[] values, Range range) {
+        BitSet bits = new BitSet();
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            if (values[ordinal] != MISSING && range.contains(values[ordinal])) {
+                bits.set(ordinal);
+            }
+        }
+        return bits;
+    }
+
+    private static BitSet maskExcept(BitSet base, Map<String, BitSet> filters, String dimension) {
+        BitSet mask = (BitSet) base.clone();
+        filters.forEach((filtered, bits) -> {
+            if (!filtered.equals(dimension)) {
+                mask.and(bits);
+            }
+        });
+        return mask;
+    }
+
+    private void removeDocument(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        live.clear(ordinal);
+        terms.values().forEach(values -> values.values().removeIf(bits -> {
+            bits.clear(ordinal);
+            return bits.isEmpty();
+        }));
+        freeOrdinals.push(ordinal);
+    }
+
+    /**
+     * Inclusive bounds, either may be null
+     */
+    public record Range(Long min, Long max) {
+        boolean contains(long value) {
+            return (min == null || value >= min) && (max == null || value <= max);
+        }
+    }
+
+    /**
+     * @param terms  selected values per term dimension, any of them matches
+     * @param ranges bounds per range dimension
+     * @param ids    documents to restrict to, or null for all of them
+     */
+    public record Query(Map<String, ? extends Collection<?>> terms, Map<String, Range> ranges, Collection<Long> ids) {
+    }
+
+    /**
+     * @param total       number of documents matching every filter
+     * @param termCounts  per dimension and value, values without matches are left out
+     * @param rangeCounts per dimension, one count per bucket
+     */
+    public record Result(long total, Map<String, Map<Object, Long>> termCounts, Map<String, long[]> rangeCounts) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.harmonia.store.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index giving substring ("contains") search
+ * over a few text fields per document without scanning every row.
+ *
+ * Queries of three or more characters only verify the documents that
+ * contain all of the query's trigrams. Results are ranked by the weight of
+ * the field that matched, with a bonus for matches at the start of a field.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final double[] fieldWeights;
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param fieldWeights ranking weight of each indexed field, in the order
+     *                     fields are passed to {@link #index}
+     */
+    public TrigramIndex(double... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /**
+     * Add or replace a document
+     */
+    public void index(Long id, String... fields) {
+        String[] normalized = new String[fieldWeights.length];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = i < fields.length ? normalize(fields[i]) : "";
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documents.put(id, normalized);
+            for (String field : normalized) {
+                for (String trigram : trigrams(field)) {
+                    postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the documents with a field containing the query, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        String term = normalize(query);
+        List<ScoredId> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(term)) {
+                double score = score(documents.get(id), term);
+                if (score > 0) {
+                    matches.add(new ScoredId(id, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(ScoredId::score).reversed().thenComparing(ScoredId::id))
+                .limit(limit)
+                .map(ScoredId::id)
+                .toList();
+    }
+
+    private Set<Long> candidates(String term) {
+        if (term.length() < GRAM) {
+            return documents.keySet();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String trigram : trigrams(term)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private double score(String[] fields, String term) {
+        double score = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int position = fields[i].indexOf(term);
+            if (position < 0) {
+                continue;
+            }
+            double fieldScore = fieldWeights[i];
+            if (position == 0) {
+                fieldScore *= fields[i].length() == term.length() ? 2.0 : 1.5;
+            }
+            // Prefer tighter matches: "les paul" ranks a short name above a long description
+            fieldScore += (double) term.length() / Math.max(fields[i].length(), 1);
+            score = Math.max(score, fieldScore);
+        }
+        return score;
+    }
+
+    private void removeDocument(Long id) {
+        String[] previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String field : previous) {
+            for (String trigram : trigrams(field)) {
+                Set<Long> ids = postings.get(trigram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record ScoredId(Long id, double score) {
+    }
+}
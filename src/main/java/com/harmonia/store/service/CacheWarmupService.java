@@ -0,0 +1,122 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.TwoLevelCacheManager;
+import com.harmonia.store.config.CacheWarmupProperties;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.InstrumentType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preloads the hottest cache keys before the node takes traffic: the 'all'
+ * lists, the per-type instrument lists, every category and the IDs most
+ * recently read on any node, as recorded in Redis by the cache manager.
+ *
+ * Keys are loaded in parallel through the cached service methods, so they
+ * land in L1 and, unless another node already has them, in Redis.
+ */
+@Slf4j
+@Service
+public class CacheWarmupService {
+
+    @Autowired
+    private InstrumentService instrumentService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired
+    private CacheWarmupProperties properties;
+
+    /**
+     * Load the keys, giving up on the ones still pending after the timeout
+     */
+    public Result warmUp() throws InterruptedException {
+        if (!properties.isEnabled()) {
+            return new Result(0, 0, 0);
+        }
+        List<Callable<Object>> loads = new ArrayList<>();
+        loads.add(instrumentService::getAllInstruments);
+        for (InstrumentType type : InstrumentType.values()) {
+            loads.add(() -> instrumentService.getInstrumentsByType(type));
+        }
+        loads.add(() -> {
+            for (Category category : categoryService.getAllCategories()) {
+                categoryService.getCategoryById(category.getId());
+            }
+            return null;
+        });
+        loads.add(customerService::getAllCustomers);
+        for (Long id : cacheManager.recentKeys("instruments")) {
+            loads.add(() -> instrumentService.getInstrumentById(id));
+        }
+        for (Long id : cacheManager.recentKeys("customers")) {
+            loads.add(() -> customerService.getCustomerById(id));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+        int loaded = 0;
+        int failed = 0;
+        int timedOut = 0;
+        try {
+            List<Future<Object>> results = executor.invokeAll(loads,
+                    properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                    loaded++;
+                } catch (CancellationException e) {
+                    timedOut++;
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.warn("Cache warm-up load failed: {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(loaded, failed, timedOut);
+    }
+
+    /**
+     * Share the IDs read on this node with the next node to start
+     */
+    @Scheduled(fixedDelayString = "${app.cache.warmup.recent-keys-flush-interval:PT30S}")
+    public void flushRecentKeys() {
+        cacheManager.flushRecentKeys();
+    }
+
+    /**
+     * Flush once more right before shutdown, so the replacement node of a
+     * deploy can preload what was read since the last scheduled flush
+     */
+    @PreDestroy
+    public void flushRecentKeysOnShutdown() {
+        cacheManager.flushRecentKeys();
+    }
+
+    /**
+     * Number of warm-up loads that completed, failed or were cut off by the timeout
+     */
+    public record Result(int loaded, int failed, int timedOut) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.harmonia.store.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.harmonia.store.dto.CustomerSummary;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams full catalogs to an OutputStream row by row. Rows come from a
+ * database cursor and are detached once written, so heap use does not
+ * grow with the number of rows.
+ */
+@Service
+@Timed("harmonia.service")
+public class CatalogExportService {
+
+    // Rows written between flushes of the underlying stream
+    private static final int FLUSH_INTERVAL = 500;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Export all instruments, returns the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportInstruments(OutputStream out, ExportFormat format) {
+        try (Stream<Instrument> rows = instrumentRepository.streamAllBy()) {
+            return writeRows(rows, InstrumentSummary::from, entityManager::detach, out, format);
+        }
+    }
+
+    /**
+     * Export all customers, returns the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportCustomers(OutputStream out, ExportFormat format) {
+        try (Stream<Customer> rows = customerRepository.streamAllBy()) {
+            return writeRows(rows, CustomerSummary::from, entityManager::detach, out, format);
+        }
+    }
+
+    /**
+     * Serialize each row as it is read, calling afterWrite on the source row
+     * once it has been written
+     */
+    public <E, R> long writeRows(Stream<E> rows, Function<E, R> mapper, Consumer<E> afterWrite,
+                                 OutputStream out, ExportFormat format) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long[] count = new long[1];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (format == ExportFormat.JSON_ARRAY) {
+                generator.writeStartArray();
+            }
+            rows.forEach(row -> {
+                try {
+                    writer.writeValue(generator, mapper.apply(row));
+                    if (format == ExportFormat.NDJSON) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++count[0] % FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                afterWrite.accept(row);
+            });
+            if (format == ExportFormat.JSON_ARRAY) {
+                generator.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+}
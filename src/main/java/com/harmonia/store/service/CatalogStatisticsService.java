@@ -0,0 +1,348 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.CatalogStatistics;
+import com.harmonia.store.dto.InstrumentStatisticsRow;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.CustomerChangedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.event.ReviewChangedEvent;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.CustomerStatus;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.ReviewRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Catalog statistics kept in LongAdder counters.
+ *
+ * Instrument, customer and review writes publish change events; once their
+ * transaction commits the old state is subtracted and the new state added,
+ * so reads never run aggregate queries. A periodic reconciliation rebuilds
+ * the counters from the database and swaps them in, correcting drift from
+ * writes made on other nodes or outside the services. Changes applied while
+ * it runs are also recorded and replayed onto the rebuilt counters.
+ */
+@Slf4j
+@Service
+@Timed("harmonia.service")
+public class CatalogStatisticsService {
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    // Upper bounds of the price histogram buckets, the last bucket is open
+    @Value("${app.statistics.price-buckets:100,250,500,1000,2500,5000}")
+    private BigDecimal[] priceBucketBounds;
+
+    private final AtomicReference<Counters> counters = new AtomicReference<>();
+
+    // Changes applied while reconcile() runs. Listeners hold the shared side
+    // so none lands in the old counters after the swap.
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Counters rebuildDeltas;
+
+    // Set when another node changed instruments, customers or reviews
+    private volatile boolean stale;
+
+    private volatile LocalDateTime reconciledAt;
+
+    @PostConstruct
+    void init() {
+        Arrays.sort(priceBucketBounds);
+        counters.set(new Counters(priceBucketBounds));
+        cacheInvalidator.onRemoteInvalidation("instruments", key -> stale = true);
+        cacheInvalidator.onRemoteInvalidation("customers", key -> stale = true);
+        cacheInvalidator.onRemoteInvalidation("ratings", key -> stale = true);
+    }
+
+    /**
+     * Snapshot of all counters
+     */
+    public CatalogStatistics getStatistics() {
+        return counters.get().snapshot(reconciledAt);
+    }
+
+    /**
+     * Number of instruments of a type
+     */
+    public long getInstrumentCount(InstrumentType type) {
+        return counters.get().byType.get(type).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        apply(current -> {
+            if (event.before() != null) {
+                current.addInstrument(event.before(), -1);
+            }
+            if (event.after() != null) {
+                current.addInstrument(event.after(), 1);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        apply(current -> {
+            if (event.before() != null) {
+                current.addCustomer(event.before(), -1);
+            }
+            if (event.after() != null) {
+                current.addCustomer(event.after(), 1);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        apply(current -> {
+            current.addReviews(event.ratingBefore(), -1);
+            current.addReviews(event.ratingAfter(), 1);
+        });
+    }
+
+    private void apply(Consumer<Counters> change) {
+        swapLock.readLock().lock();
+        try {
+            change.accept(counters.get());
+            Counters deltas = rebuildDeltas;
+            if (deltas != null) {
+                change.accept(deltas);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the counters from the database. Changes applied meanwhile are
+     * replayed onto the result before the swap, so none is lost. One that
+     * committed before its query read the table is counted twice until the
+     * next reconciliation.
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    @Scheduled(fixedDelayString = "${app.statistics.reconcile-interval:PT10M}",
+               initialDelayString = "${app.statistics.reconcile-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        stale = false;
+        Counters deltas = new Counters(priceBucketBounds);
+        rebuildDeltas = deltas;
+        Counters fresh = new Counters(priceBucketBounds);
+        for (InstrumentStatisticsRow row : instrumentRepository.aggregateStatistics()) {
+            fresh.addInstruments(row);
+        }
+        for (Object[] row : customerRepository.countGroupedByStatus()) {
+            if (row[0] != null) {
+                fresh.addCustomer((CustomerStatus) row[0], (Long) row[1]);
+            }
+        }
+        for (Object[] row : reviewRepository.countGroupedByRating()) {
+            fresh.addReviews((Integer) row[0], (Long) row[1]);
+        }
+        Counters previous;
+        swapLock.writeLock().lock();
+        try {
+            fresh.addAll(deltas);
+            previous = counters.getAndSet(fresh);
+            rebuildDeltas = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        reconciledAt = LocalDateTime.now();
+
+        long drift = fresh.instruments.sum() - previous.instruments.sum();
+        if (drift != 0) {
+            log.debug("Statistics reconciled, instrument count corrected by {}", drift);
+        }
+    }
+
+    /**
+     * Reconcile soon after writes on other nodes instead of waiting for
+     * the full interval
+     */
+    @Scheduled(fixedDelayString = "${app.statistics.stale-check-interval:PT15S}")
+    @Transactional(readOnly = true)
+    public void reconcileIfStale() {
+        if (stale) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Lock-free counters for one generation between reconciliations
+     */
+    static final class Counters {
+        private final BigDecimal[] bucketBounds;
+        private final LongAdder instruments = new LongAdder();
+        private final Map<InstrumentType, LongAdder> byType = newEnumCounters(InstrumentType.class);
+        private final Map<Condition, LongAdder> byCondition = newEnumCounters(Condition.class);
+        private final Map<Long, LongAdder> byCategory = new ConcurrentHashMap<>();
+        private final LongAdder stockUnits = new LongAdder();
+        private final LongAdder stockValueCents = new LongAdder();
+        private final LongAdder[] priceBuckets;
+        // Index 0 is unused, ratings are 1 to 5
+        private final LongAdder[] ratings = newCounters(6);
+        private final Map<CustomerStatus, LongAdder> customersByStatus = newEnumCounters(CustomerStatus.class);
+
+        Counters(BigDecimal[] bucketBounds) {
+            this.bucketBounds = bucketBounds;
+            this.priceBuckets = newCounters(bucketBounds.length + 1);
+        }
+
+        void addInstrument(InstrumentSnapshot instrument, int sign) {
+            add(instrument.type(), instrument.condition(), instrument.categoryId(), instrument.price(),
+                    sign, (long) sign * instrument.stockQuantity());
+        }
+
+        void addInstruments(InstrumentStatisticsRow row) {
+            add(row.type(), row.condition(), row.categoryId(), row.price(),
+                    row.count(), row.stockQuantity() != null ? row.stockQuantity() : 0);
+        }
+
+        private void add(InstrumentType type, Condition condition, Long categoryId, BigDecimal price,
+                         long count, long stock) {
+            instruments.add(count);
+            if (type != null) {
+                byType.get(type).add(count);
+            }
+            if (condition != null) {
+                byCondition.get(condition).add(count);
+            }
+            if (categoryId != null) {
+                byCategory.computeIfAbsent(categoryId, id -> new LongAdder()).add(count);
+            }
+            stockUnits.add(stock);
+            if (price != null) {
+                stockValueCents.add(toCents(price) * stock);
+                priceBuckets[bucketOf(price)].add(count);
+            }
+        }
+
+        void addAll(Counters other) {
+            instruments.add(other.instruments.sum());
+            addAll(byType, other.byType);
+            addAll(byCondition, other.byCondition);
+            addAll(byCategory, other.byCategory);
+            stockUnits.add(other.stockUnits.sum());
+            stockValueCents.add(other.stockValueCents.sum());
+            for (int i = 0; i < priceBuckets.length; i++) {
+                priceBuckets[i].add(other.priceBuckets[i].sum());
+            }
+            for (int i = 0; i < ratings.length; i++) {
+                ratings[i].add(other.ratings[i].sum());
+            }
+            addAll(customersByStatus, other.customersByStatus);
+        }
+
+        private static <K> void addAll(Map<K, LongAdder> target, Map<K, LongAdder> source) {
+            source.forEach((key, count) -> target.computeIfAbsent(key, k -> new LongAdder()).add(count.sum()));
+        }
+
+        void addCustomer(CustomerStatus status, long count) {
+            customersByStatus.get(status).add(count);
+        }
+
+        void addReviews(Integer rating, long count) {
+            if (rating != null && rating >= 1 && rating < ratings.length) {
+                ratings[rating].add(count);
+            }
+        }
+
+        private int bucketOf(BigDecimal price) {
+            int index = Arrays.binarySearch(bucketBounds, price, BigDecimal::compareTo);
+            // An exact bound starts the next bucket
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        CatalogStatistics snapshot(LocalDateTime reconciledAt) {
+            List<CatalogStatistics.PriceBucket> histogram = new ArrayList<>(priceBuckets.length);
+            for (int i = 0; i < priceBuckets.length; i++) {
+                histogram.add(new CatalogStatistics.PriceBucket(
+                        i == 0 ? BigDecimal.ZERO : bucketBounds[i - 1],
+                        i < bucketBounds.length ? bucketBounds[i] : null,
+                        priceBuckets[i].sum()));
+            }
+            Map<Long, Long> categories = new TreeMap<>();
+            byCategory.forEach((id, count) -> categories.put(id, count.sum()));
+
+            Map<Integer, Long> reviewsByRating = new TreeMap<>();
+            long reviewCount = 0;
+            long ratingTotal = 0;
+            for (int rating = 1; rating < ratings.length; rating++) {
+                long count = ratings[rating].sum();
+                reviewsByRating.put(rating, count);
+                reviewCount += count;
+                ratingTotal += count * rating;
+            }
+            Map<CustomerStatus, Long> customers = sums(customersByStatus);
+
+            return new CatalogStatistics(instruments.sum(), sums(byType), sums(byCondition), categories,
+                    stockUnits.sum(), BigDecimal.valueOf(stockValueCents.sum(), 2), histogram,
+                    reviewCount, reviewCount > 0 ? (double) ratingTotal / reviewCount : null, reviewsByRating,
+                    customers.values().stream().mapToLong(Long::longValue).sum(), customers, reconciledAt);
+        }
+
+        private static long toCents(BigDecimal price) {
+            return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+
+        private static <E extends Enum<E>> Map<E, LongAdder> newEnumCounters(Class<E> type) {
+            Map<E, LongAdder> counters = new EnumMap<>(type);
+            for (E value : type.getEnumConstants()) {
+                counters.put(value, new LongAdder());
+            }
+            return counters;
+        }
+
+        private static LongAdder[] newCounters(int size) {
+            LongAdder[] counters = new LongAdder[size];
+            Arrays.setAll(counters, i -> new LongAdder());
+            return counters;
+        }
+
+        private static <E extends Enum<E>> Map<E, Long> sums(Map<E, LongAdder> counters) {
+            Map<E, Long> sums = new LinkedHashMap<>();
+            counters.forEach((key, count) -> sums.put(key, count.sum()));
+            return sums;
+        }
+    }
+}
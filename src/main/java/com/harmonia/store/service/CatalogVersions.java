@@ -0,0 +1,98 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Version stamps of the cached collections and of their single entries,
+ * for conditional GETs answered without reading the data.
+ *
+ * Every committed cache invalidation, local or from another node, bumps a
+ * write counter per collection and records the time of the write; an
+ * invalidated ID also keeps the counter value and time of its own last
+ * write. Because the services evict on every write, a stamp changes
+ * whenever the data behind it can have changed.
+ *
+ * Counters are per node, so ETags carry a random node ID and never match
+ * across nodes or restarts. Last-Modified is the later of this node's start
+ * and the last write seen, never earlier than the written row's updatedAt;
+ * updatedAt itself cannot be used as it does not change on deletes.
+ */
+@Component
+public class CatalogVersions {
+
+    public static final List<String> COLLECTIONS = List.of("instruments", "categories", "customers", "ratings");
+
+    private final String node = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final Map<String, Versions> versions = COLLECTIONS.stream()
+            .collect(Collectors.toUnmodifiableMap(Function.identity(), name -> new Versions()));
+
+    public CatalogVersions(CacheInvalidator cacheInvalidator) {
+        versions.forEach((name, collection) -> cacheInvalidator.onInvalidation(name, collection::changed));
+    }
+
+    /**
+     * Stamp of everything in a collection, for lists and searches
+     */
+    public Stamp collection(String name) {
+        Versions collection = versions.get(name);
+        return new Stamp(node + "-" + collection.counter.get(), collection.lastModified);
+    }
+
+    /**
+     * Stamp of one entry of a collection
+     */
+    public Stamp resource(String name, Long id) {
+        Versions collection = versions.get(name);
+        Write cleared = collection.cleared;
+        Write write = collection.writes.getOrDefault(id, cleared);
+        if (cleared.version() > write.version()) {
+            write = cleared;
+        }
+        return new Stamp(node + "-" + write.version(), write.at());
+    }
+
+    /**
+     * Opaque version for the ETag and last write time in epoch milliseconds
+     */
+    public record Stamp(String version, long lastModified) {
+
+        /**
+         * Stamp of a response that depends on both
+         */
+        public Stamp and(Stamp other) {
+            return new Stamp(version + "." + other.version, Math.max(lastModified, other.lastModified));
+        }
+    }
+
+    private record Write(long version, long at) {
+    }
+
+    private static final class Versions {
+
+        private final AtomicLong counter = new AtomicLong();
+        private final Map<Long, Write> writes = new ConcurrentHashMap<>();
+        private volatile Write cleared = new Write(0, System.currentTimeMillis());
+        private volatile long lastModified = cleared.at();
+
+        void changed(Object key) {
+            Write write = new Write(counter.incrementAndGet(), System.currentTimeMillis());
+            if (key == null) {
+                cleared = write;
+                writes.clear();
+            } else if (key instanceof Long id) {
+                writes.merge(id, write, (previous, next) -> next.version() > previous.version() ? next : previous);
+            }
+            lastModified = Math.max(lastModified, write.at());
+        }
+    }
+}
@@ -1,54 +1,122 @@
 package com.harmonia.store.service;
 
+import com.harmonia.store.cache.CacheInvalidator;
 import com.harmonia.store.model.Category;
 import com.harmonia.store.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Timed("harmonia.service")
 @Transactional
 public class CategoryService {
 
+    private static final String CACHE = "categories";
+
     @Autowired
     private CategoryRepository categoryRepository;
 
-    @Cacheable(value = "categories", key = "'all'")
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Instrument summaries carry the category name
+    @Autowired
+    private InstrumentService instrumentService;
+
+    /**
+     * Hibernate's second-level cache is local to each node, so drop
+     * categories that another node changed from it as well
+     */
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        cacheInvalidator.onRemoteInvalidation(CACHE, key -> {
+            if (key instanceof Long id) {
+                entityManagerFactory.getCache().evict(Category.class, id);
+            } else if (key == null) {
+                entityManagerFactory.getCache().evict(Category.class);
+            }
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(Category.QUERY_CACHE_REGION);
+        });
+    }
+
+    @Cacheable(value = "categories", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
-    @Cacheable(value = "categories", key = "#id")
+    @Cacheable(value = "categories", key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public Optional<Category> getCategoryById(Long id) {
         return categoryRepository.findById(id);
     }
 
-    @Cacheable(value = "categories", key = "'name_' + #name")
+    @Cacheable(value = "categories", key = "'name_' + #name.toLowerCase()", sync = true)
+    @Transactional(readOnly = true)
     public Optional<Category> getCategoryByName(String name) {
         return categoryRepository.findByNameIgnoreCase(name);
     }
 
-    @CacheEvict(value = "categories", allEntries = true)
     public Category addCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        evictCachedEntries(saved.getId(), saved.getName());
+        return saved;
     }
 
-    @CacheEvict(value = "categories", key = "#category.id")
     public Category updateCategory(Category category) {
-        return categoryRepository.save(category);
+        String previousName = categoryRepository.findById(category.getId())
+                .map(Category::getName)
+                .orElse(null);
+        Category updated = categoryRepository.save(category);
+        evictCachedEntries(updated.getId(), previousName, updated.getName());
+        if (previousName != null && !previousName.equals(updated.getName())) {
+            instrumentService.evictAllCachedEntries();
+        }
+        return updated;
     }
 
-    @CacheEvict(value = "categories", allEntries = true)
     public void deleteCategory(Long id) {
+        String name = categoryRepository.findById(id)
+                .map(Category::getName)
+                .orElse(null);
         categoryRepository.deleteById(id);
+        evictCachedEntries(id, name);
+        instrumentService.evictAllCachedEntries();
     }
 
+    @Transactional(readOnly = true)
     public List<Category> searchCategoriesByName(String name) {
         return categoryRepository.findByNameContainingIgnoreCase(name);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Evict the entries a category can appear in: by ID, by name and the 'all' list
+     */
+    private void evictCachedEntries(Long id, String... names) {
+        Set<Object> keys = new HashSet<>();
+        keys.add("all");
+        if (id != null) {
+            keys.add(id);
+        }
+        for (String name : names) {
+            if (name != null) {
+                keys.add("name_" + name.toLowerCase());
+            }
+        }
+        cacheInvalidator.evict(CACHE, keys);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.harmonia.store.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Accumulated, not yet written change to one customer's purchase total
+ * (in cents) and loyalty points
+ */
+public record CustomerDelta(long customerId, long purchaseCents, long loyaltyPoints) {
+
+    public BigDecimal purchaseAmount() {
+        return BigDecimal.valueOf(purchaseCents, 2);
+    }
+}
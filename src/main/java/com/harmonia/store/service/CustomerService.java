@@ -1,85 +1,281 @@
 package com.harmonia.store.service;
 
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.CustomerChangedEvent;
 import com.harmonia.store.model.Customer;
 import com.harmonia.store.model.CustomerStatus;
 import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.search.TrigramIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
+@Timed("harmonia.service")
 @Transactional
 public class CustomerService {
 
+    private static final String CACHE = "customers";
+
     @Autowired
     private CustomerRepository customerRepository;
 
-    @Cacheable(value = "customers", key = "'all'")
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Trigram index over first, last and full name
+    @Autowired
+    @Qualifier("customerSearchIndex")
+    private TrigramIndex searchIndex;
+
+    @Autowired
+    private CustomerUpdateBuffer updateBuffer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.search.max-results:100}")
+    private int maxSearchResults;
+
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        // Refresh the indexed customer when a peer changes it
+        cacheInvalidator.onRemoteInvalidation(CACHE, key -> {
+            if (key instanceof Long id) {
+                customerRepository.findById(id).ifPresentOrElse(this::indexCustomer, () -> searchIndex.remove(id));
+            }
+        });
+    }
+
+    /**
+     * Build the search index once startup has loaded the data
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndex() {
+        searchIndex.clear();
+        customerRepository.findAll().forEach(this::indexCustomer);
+    }
+
+    @Cacheable(value = "customers", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
     public List<Customer> getAllCustomers() {
         return customerRepository.findAll();
     }
 
-    @Cacheable(value = "customers", key = "#id")
+    @Cacheable(value = "customers", key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerById(Long id) {
         return customerRepository.findById(id);
     }
 
-    @Cacheable(value = "customers", key = "'email_' + #email")
+    @Cacheable(value = "customers", key = "'email_' + #email.toLowerCase()", sync = true)
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerByEmail(String email) {
         return customerRepository.findByEmailIgnoreCase(email);
     }
 
-    @CacheEvict(value = "customers", allEntries = true)
     public Customer addCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        evictCachedEntries(saved.getId(), saved.getEmail());
+        eventPublisher.publishEvent(new CustomerChangedEvent(saved.getId(), null, saved.getStatus()));
+        return saved;
     }
 
-    @CacheEvict(value = "customers", key = "#customer.id")
     public Customer updateCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        Optional<Customer> previous = customerRepository.findById(customer.getId());
+        String previousEmail = previous.map(Customer::getEmail).orElse(null);
+        CustomerStatus previousStatus = previous.map(Customer::getStatus).orElse(null);
+        Customer updated = customerRepository.save(customer);
+        evictCachedEntries(updated.getId(), previousEmail, updated.getEmail());
+        eventPublisher.publishEvent(new CustomerChangedEvent(updated.getId(), previousStatus, updated.getStatus()));
+        return updated;
     }
 
-    @CacheEvict(value = "customers", allEntries = true)
     public void deleteCustomer(Long id) {
+        Optional<Customer> previous = customerRepository.findById(id);
         customerRepository.deleteById(id);
+        evictCachedEntries(id, previous.map(Customer::getEmail).orElse(null));
+        previous.ifPresent(customer ->
+                eventPublisher.publishEvent(new CustomerChangedEvent(id, customer.getStatus(), null)));
+    }
+
+    /**
+     * Re-index a customer once its change has committed, so a rolled back
+     * write never reaches the search index
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        Long id = event.customerId();
+        if (event.after() == null) {
+            searchIndex.remove(id);
+        } else {
+            customerRepository.findById(id).ifPresentOrElse(this::indexCustomer, () -> searchIndex.remove(id));
+        }
     }
 
+    /**
+     * Ranked search over first, last and full name using the trigram index
+     */
+    @Transactional(readOnly = true)
     public List<Customer> searchCustomersByName(String name) {
-        return customerRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(name, name);
+        List<Long> ids = searchIndex.search(name, maxSearchResults);
+        Map<Long, Customer> byId = customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
+    @Transactional(readOnly = true)
     public List<Customer> getCustomersByStatus(CustomerStatus status) {
         return customerRepository.findByStatus(status);
     }
 
+    @Transactional(readOnly = true)
     public List<Customer> getCustomersByLoyaltyPoints(Integer minPoints) {
         return customerRepository.findByLoyaltyPointsGreaterThanEqual(minPoints);
     }
 
-    @Transactional
+    /**
+     * Queue a purchase, written by the next write-behind flush
+     */
     public void addPurchaseToCustomer(Long customerId, BigDecimal amount) {
-        Optional<Customer> optional = customerRepository.findById(customerId);
-        if (optional.isPresent()) {
-            Customer customer = optional.get();
-            customer.addPurchase(amount);
-            customerRepository.save(customer);
-        }
+        updateBuffer.addPurchase(customerId, amount);
     }
 
-    @Transactional
+    /**
+     * Queue loyalty points, written by the next write-behind flush
+     */
     public void addLoyaltyPoints(Long customerId, Integer points) {
-        Optional<Customer> optional = customerRepository.findById(customerId);
-        if (optional.isPresent()) {
-            Customer customer = optional.get();
-            customer.setLoyaltyPoints(customer.getLoyaltyPoints() + points);
-            customerRepository.save(customer);
+        updateBuffer.addLoyaltyPoints(customerId, points);
+    }
+
+    /**
+     * Write the buffered purchase and loyalty deltas as one batched UPDATE,
+     * one row per customer however many calls were coalesced. If the batch
+     * fails for good, e.g. one total overflows its column, the rows are
+     * retried one by one so only the failing ones are left out.
+     */
+    @Scheduled(fixedDelayString = "${app.customers.write-behind.flush-interval:PT1S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushPendingUpdates() {
+        CustomerUpdateBuffer.Batch batch = updateBuffer.drain();
+        if (batch.isEmpty()) {
+            return;
         }
+        Map<Long, String> emails;
+        try {
+            emails = writeDeltas(batch.deltas());
+            updateBuffer.completed(batch);
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                updateBuffer.requeue(batch);
+                throw e;
+            }
+            log.warn("Batched customer update failed, writing {} customers one by one", batch.deltas().size(), e);
+            emails = writeRowByRow(batch);
+        }
+        Set<Object> keys = new HashSet<>();
+        keys.add("all");
+        emails.forEach((id, email) -> {
+            keys.add(id);
+            keys.add("email_" + email.toLowerCase());
+        });
+        cacheInvalidator.evict(CACHE, keys);
+    }
+
+    /**
+     * Write each delta in its own transaction. Deltas that fail for good are
+     * logged and dropped, a transient failure requeues it and the rest of
+     * the batch for the next flush.
+     */
+    private Map<Long, String> writeRowByRow(CustomerUpdateBuffer.Batch batch) {
+        Map<Long, String> emails = new HashMap<>();
+        List<CustomerDelta> unwritten = new ArrayList<>();
+        List<CustomerDelta> deltas = batch.deltas();
+        for (int i = 0; i < deltas.size(); i++) {
+            CustomerDelta delta = deltas.get(i);
+            try {
+                emails.putAll(writeDeltas(List.of(delta)));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.warn("Customer update failed, requeuing {} customers", deltas.size() - i, e);
+                    unwritten.addAll(deltas.subList(i, deltas.size()));
+                    break;
+                }
+                log.error("Dropping customer update that cannot be written: {}", delta, e);
+            }
+        }
+        updateBuffer.requeue(batch, unwritten);
+        return emails;
+    }
+
+    private Map<Long, String> writeDeltas(List<CustomerDelta> deltas) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate("UPDATE customers SET total_purchases = total_purchases + ?, " +
+                            "loyalty_points = loyalty_points + ?, updated_at = ? WHERE id = ?",
+                    deltas, deltas.size(), (ps, delta) -> {
+                        ps.setBigDecimal(1, delta.purchaseAmount());
+                        ps.setLong(2, delta.loyaltyPoints());
+                        ps.setTimestamp(3, now);
+                        ps.setLong(4, delta.customerId());
+                    });
+            return findEmails(deltas);
+        });
+    }
+
+    // Anything but a failure the database will repeat, e.g. a constraint
+    // violation or a value out of range, is worth retrying later
+    private static boolean isTransient(RuntimeException e) {
+        return !(e instanceof NonTransientDataAccessException) || e instanceof DataAccessResourceFailureException;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushPendingUpdates();
     }
 
     @Transactional
@@ -87,8 +283,45 @@ public class CustomerService {
         Optional<Customer> optional = customerRepository.findById(customerId);
         if (optional.isPresent()) {
             Customer customer = optional.get();
+            CustomerStatus previousStatus = customer.getStatus();
             customer.setStatus(status);
             customerRepository.save(customer);
+            evictCachedEntries(customerId, customer.getEmail());
+            eventPublisher.publishEvent(new CustomerChangedEvent(customerId, previousStatus, status));
+        }
+    }
+
+    private Map<Long, String> findEmails(List<CustomerDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Object> params = Map.of("ids", deltas.stream().map(CustomerDelta::customerId).toList());
+        Map<Long, String> emails = new HashMap<>();
+        new NamedParameterJdbcTemplate(jdbcTemplate).query("SELECT id, email FROM customers WHERE id IN (:ids)",
+                params, row -> {
+                    emails.put(row.getLong("id"), row.getString("email"));
+                });
+        return emails;
+    }
+
+    private void indexCustomer(Customer customer) {
+        searchIndex.index(customer.getId(), customer.getFirstName(), customer.getLastName(), customer.getFullName());
+    }
+
+    /**
+     * Evict the entries a customer can appear in: by ID, by email and the 'all' list
+     */
+    private void evictCachedEntries(Long id, String... emails) {
+        Set<Object> keys = new HashSet<>();
+        keys.add("all");
+        if (id != null) {
+            keys.add(id);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                keys.add("email_" + email.toLowerCase());
+            }
         }
+        cacheInvalidator.evict(CACHE, keys);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
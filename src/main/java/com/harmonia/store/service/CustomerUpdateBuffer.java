@@ -0,0 +1,345 @@
+package com.harmonia.store.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for customer purchase and loyalty point deltas.
+ *
+ * Callers add to per-customer LongAdders under the shared side of a
+ * read/write lock, so concurrent updates to the same customer never block
+ * each other. drain() takes the exclusive side only to swap in an empty
+ * map, then the caller writes the coalesced deltas in one batch.
+ *
+ * With app.customers.write-behind.journal.enabled every delta is also
+ * appended to the current journal segment and forced to disk before the
+ * call returns. Concurrent callers share one force (group commit): a caller
+ * that finds a force in progress waits for it, then returns without forcing
+ * if a force since its append already covered it. A segment is deleted once the
+ * batch containing it is committed, and leftover segments are replayed on
+ * startup, so a crash loses no accepted update. A crash between the commit
+ * and the delete replays that segment again (at-least-once).
+ */
+@Slf4j
+@Component
+public class CustomerUpdateBuffer {
+
+    private static final String SEGMENT_PREFIX = "customer-updates-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Guards journal appends and requeued segments. An explicit lock rather
+    // than synchronized so a virtual thread blocked on file I/O unmounts.
+    private final Lock journalLock = new ReentrantLock();
+    // Held while forcing the journal, taken before journalLock when both are needed
+    private final Lock forceLock = new ReentrantLock();
+    private Map<Long, Accumulator> pending = new ConcurrentHashMap<>();
+
+    // Journal segments whose deltas are not yet written to the database
+    private final List<Path> unflushedSegments = new ArrayList<>();
+
+    @Value("${app.customers.write-behind.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${app.customers.write-behind.journal.directory:data/journal}")
+    private Path journalDirectory;
+
+    private long segmentSequence;
+    private Path currentSegment;
+    private FileChannel journal;
+    // Bytes appended to the journal across segments (guarded by journalLock)
+    // and bytes known to be on disk (guarded by forceLock)
+    private long appendedBytes;
+    private long forcedBytes;
+
+    public CustomerUpdateBuffer() {
+    }
+
+    public CustomerUpdateBuffer(boolean journalEnabled, Path journalDirectory) {
+        this.journalEnabled = journalEnabled;
+        this.journalDirectory = journalDirectory;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!journalEnabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(journalDirectory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(journalDirectory)) {
+                segments = files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (Path segment : segments) {
+                replay(segment);
+                unflushedSegments.add(segment);
+                segmentSequence = Math.max(segmentSequence, sequenceOf(segment));
+            }
+            if (!segments.isEmpty()) {
+                log.info("Replayed {} customer update journal segments, {} customers pending",
+                        segments.size(), pending.size());
+            }
+            startSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open customer update journal in " + journalDirectory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        swapLock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record a purchase: adds the amount and amount.intValue() loyalty points,
+     * like Customer.addPurchase
+     */
+    public void addPurchase(Long customerId, BigDecimal amount) {
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        record(customerId, cents, amount.intValue());
+    }
+
+    /**
+     * Record loyalty points
+     */
+    public void addLoyaltyPoints(Long customerId, int points) {
+        record(customerId, 0, points);
+    }
+
+    private void record(long customerId, long cents, long points) {
+        swapLock.readLock().lock();
+        try {
+            if (journal != null) {
+                appendToJournal(customerId, cents, points);
+            }
+            pending.computeIfAbsent(customerId, id -> new Accumulator()).add(cents, points);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Take every pending delta, leaving the buffer empty. The returned batch
+     * must be passed to either completed() or requeue().
+     */
+    public Batch drain() {
+        Map<Long, Accumulator> drained;
+        List<Path> segments;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty() && unflushedSegments.isEmpty()) {
+                return Batch.EMPTY;
+            }
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+            if (journal != null) {
+                journal.close();
+                unflushedSegments.add(currentSegment);
+                startSegment();
+            }
+            segments = List.copyOf(unflushedSegments);
+            unflushedSegments.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        List<CustomerDelta> deltas = new ArrayList<>(drained.size());
+        drained.forEach((id, accumulator) -> deltas.add(accumulator.toDelta(id)));
+        return new Batch(deltas, segments);
+    }
+
+    /**
+     * The batch is durably written, drop its journal segments
+     */
+    public void completed(Batch batch) {
+        for (Path segment : batch.journalSegments()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("Could not delete customer update journal segment {}", segment, e);
+            }
+        }
+    }
+
+    /**
+     * Writing the batch failed, put its deltas back for the next flush
+     */
+    public void requeue(Batch batch) {
+        swapLock.readLock().lock();
+        try {
+            for (CustomerDelta delta : batch.deltas()) {
+                pending.computeIfAbsent(delta.customerId(), id -> new Accumulator())
+                        .add(delta.purchaseCents(), delta.loyaltyPoints());
+            }
+            journalLock.lock();
+            try {
+                unflushedSegments.addAll(0, batch.journalSegments());
+            } finally {
+                journalLock.unlock();
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Only part of the batch was written: put the unwritten deltas back for
+     * the next flush, journaled again, then drop the batch's segments. A
+     * crash in between replays the whole batch (at-least-once).
+     */
+    public void requeue(Batch batch, List<CustomerDelta> unwritten) {
+        for (CustomerDelta delta : unwritten) {
+            record(delta.customerId(), delta.purchaseCents(), delta.loyaltyPoints());
+        }
+        completed(batch);
+    }
+
+    /**
+     * Number of customers with pending deltas
+     */
+    public int pendingCustomers() {
+        return pending.size();
+    }
+
+    private void appendToJournal(long customerId, long cents, long points) {
+        ByteBuffer line = ByteBuffer.wrap((customerId + " " + cents + " " + points + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        long end;
+        journalLock.lock();
+        try {
+            appendedBytes += line.remaining();
+            end = appendedBytes;
+            while (line.hasRemaining()) {
+                journal.write(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to customer update journal", e);
+        } finally {
+            journalLock.unlock();
+        }
+        // The update is acknowledged once this returns, so it must be on disk. The caller holds the
+        // shared swap lock, so the segment cannot be closed before it is forced.
+        forceLock.lock();
+        try {
+            if (forcedBytes < end) {
+                long covered;
+                journalLock.lock();
+                try {
+                    covered = appendedBytes;
+                } finally {
+                    journalLock.unlock();
+                }
+                journal.force(false);
+                forcedBytes = covered;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not force customer update journal", e);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        currentSegment = journalDirectory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, ++segmentSequence, SEGMENT_SUFFIX));
+        journal = FileChannel.open(currentSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        syncDirectory();
+    }
+
+    /**
+     * Make the new segment's directory entry durable, or a crash could lose
+     * the whole file even though its contents were forced
+     */
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(journalDirectory, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not every platform can open or sync a directory
+            log.debug("Could not sync customer update journal directory {}", journalDirectory, e);
+        }
+    }
+
+    private void replay(Path segment) throws IOException {
+        String content = Files.readString(segment, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n') + 1;
+        if (end < content.length()) {
+            // A torn last entry from a crash mid-write was never acknowledged
+            log.warn("Skipping incomplete journal entry '{}' in {}", content.substring(end), segment);
+        }
+        for (String line : content.substring(0, end).split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(" ");
+            pending.computeIfAbsent(Long.parseLong(fields[0]), id -> new Accumulator())
+                    .add(Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Deltas drained in one flush and the journal segments that hold them
+     */
+    public record Batch(List<CustomerDelta> deltas, List<Path> journalSegments) {
+
+        static final Batch EMPTY = new Batch(List.of(), List.of());
+
+        public boolean isEmpty() {
+            return deltas.isEmpty() && journalSegments.isEmpty();
+        }
+    }
+
+    private static final class Accumulator {
+        private final LongAdder cents = new LongAdder();
+        private final LongAdder points = new LongAdder();
+
+        void add(long centsDelta, long pointsDelta) {
+            cents.add(centsDelta);
+            points.add(pointsDelta);
+        }
+
+        CustomerDelta toDelta(long customerId) {
+            return new CustomerDelta(customerId, cents.sum(), points.sum());
+        }
+    }
+}
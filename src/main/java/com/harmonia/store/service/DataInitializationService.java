@@ -3,7 +3,6 @@ package com.harmonia.store.service;
 import com.harmonia.store.model.*;
 import com.harmonia.store.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,8 +10,12 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Seeds the sample data into an empty database. Called by StartupService
+ * in the background after the context has started.
+ */
 @Service
-public class DataInitializationService implements CommandLineRunner {
+public class DataInitializationService {
 
     @Autowired
     private CategoryRepository categoryRepository;
@@ -26,13 +29,19 @@ public class DataInitializationService implements CommandLineRunner {
     @Autowired
     private ReviewRepository reviewRepository;
 
-    @Override
+    @Autowired
+    private ReviewService reviewService;
+
+    /**
+     * Populate the database unless it already has data. Returns whether it did.
+     */
     @Transactional
-    public void run(String... args) throws Exception {
-        // Only populate if there are no existing data
-        if (categoryRepository.count() == 0) {
-            initializeData();
+    public boolean seedIfEmpty() {
+        if (categoryRepository.count() > 0) {
+            return false;
         }
+        initializeData();
+        return true;
     }
 
     private void initializeData() {
@@ -49,8 +58,9 @@ public class DataInitializationService implements CommandLineRunner {
         // Create customers
         createCustomers();
         
-        // Create reviews
+        // Create reviews and their rating summaries
         createReviews();
+        reviewService.rebuildRatingSummaries();
         
         System.out.println("Database successfully populated with sample data!");
     }
@@ -192,6 +202,7 @@ public class DataInitializationService implements CommandLineRunner {
                 instrument
             );
             review.setAuthorEmail(customer.getEmail());
+            review.setCustomer(customer);
             reviewRepository.save(review);
         }
     }
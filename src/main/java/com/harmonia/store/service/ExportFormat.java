@@ -0,0 +1,8 @@
+package com.harmonia.store.service;
+
+public enum ExportFormat {
+    // One JSON object per line (application/x-ndjson)
+    NDJSON,
+    // A single JSON array written element by element
+    JSON_ARRAY;
+}
@@ -0,0 +1,8 @@
+package com.harmonia.store.service;
+
+public enum ImportFormat {
+    // Header line followed by comma separated rows (text/csv)
+    CSV,
+    // One JSON object per line (application/x-ndjson)
+    NDJSON;
+}
@@ -0,0 +1,84 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.repository.InstrumentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current InstrumentCatalogSnapshot and swaps in a new one after
+ * instrument changes, at most once per refresh interval.
+ *
+ * Every committed change (local, or a cache invalidation from another node)
+ * bumps a generation counter. A snapshot is only handed out while no change
+ * is pending, so callers fall back to the database instead of reading data
+ * older than their own writes.
+ */
+@Slf4j
+@Component
+public class InstrumentCatalog {
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    private final AtomicLong changes = new AtomicLong();
+
+    private final AtomicReference<InstrumentCatalogSnapshot> snapshot = new AtomicReference<>();
+
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        cacheInvalidator.onRemoteInvalidation("instruments", key -> changes.incrementAndGet());
+        // A committed clear on this node, e.g. after a category rename, comes without an InstrumentChangedEvent
+        cacheInvalidator.onInvalidation("instruments", key -> {
+            if (key == null) {
+                changes.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * The snapshot if it reflects every known change, otherwise null
+     */
+    public InstrumentCatalogSnapshot current() {
+        InstrumentCatalogSnapshot current = snapshot.get();
+        return current != null && current.generation() == changes.get() ? current : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Rebuild the snapshot from the database. Changes committed while the
+     * query runs leave it behind the counter until the next refresh.
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    public void refresh() {
+        long generation = changes.get();
+        InstrumentCatalogSnapshot fresh = InstrumentCatalogSnapshot.of(instrumentRepository.findAllSummaries(), generation);
+        snapshot.set(fresh);
+        log.debug("Instrument catalog snapshot rebuilt with {} rows", fresh.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.snapshot.refresh-interval:PT1S}")
+    public void refreshIfChanged() {
+        InstrumentCatalogSnapshot current = snapshot.get();
+        if (current != null && current.generation() != changes.get()) {
+            refresh();
+        }
+    }
+}
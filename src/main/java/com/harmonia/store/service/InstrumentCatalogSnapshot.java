@@ -0,0 +1,110 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable columnar copy of the instrument catalog.
+ *
+ * Rows are sorted by price and every column is a primitive array in that
+ * order: prices in cents, type ordinals and stock. Price ranges are two
+ * binary searches, stock and type queries are branch-light loops over a
+ * single array.
+ */
+public final class InstrumentCatalogSnapshot {
+
+    // Number of instrument changes applied when the snapshot was read
+    private final long generation;
+    private final long[] priceCents;
+    private final byte[] types;
+    private final int[] stock;
+    private final InstrumentSummary[] rows;
+
+    private InstrumentCatalogSnapshot(long generation, InstrumentSummary[] rows) {
+        this.generation = generation;
+        this.rows = rows;
+        this.priceCents = new long[rows.length];
+        this.types = new byte[rows.length];
+        this.stock = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            priceCents[i] = toCents(rows[i].price(), RoundingMode.HALF_UP);
+            types[i] = (byte) rows[i].type().ordinal();
+            stock[i] = rows[i].stockQuantity() != null ? rows[i].stockQuantity() : 0;
+        }
+    }
+
+    public static InstrumentCatalogSnapshot of(List<InstrumentSummary> instruments, long generation) {
+        InstrumentSummary[] rows = instruments.toArray(new InstrumentSummary[0]);
+        Arrays.sort(rows, Comparator.comparing(InstrumentSummary::price).thenComparing(InstrumentSummary::id));
+        return new InstrumentCatalogSnapshot(generation, rows);
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Instruments priced between the bounds (inclusive), cheapest first
+     */
+    public List<InstrumentSummary> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = firstAtLeast(toCents(minPrice, RoundingMode.CEILING));
+        int to = firstAtLeast(toCents(maxPrice, RoundingMode.FLOOR) + 1);
+        return from < to ? List.of(Arrays.copyOfRange(rows, from, to)) : List.of();
+    }
+
+    /**
+     * Instruments with (inStock) or without stock, cheapest first
+     */
+    public List<InstrumentSummary> findByStock(boolean inStock) {
+        List<InstrumentSummary> matches = new ArrayList<>();
+        for (int i = 0; i < stock.length; i++) {
+            if (stock[i] > 0 == inStock) {
+                matches.add(rows[i]);
+            }
+        }
+        return matches;
+    }
+
+    public long countByType(InstrumentType type) {
+        byte ordinal = (byte) type.ordinal();
+        long count = 0;
+        for (byte value : types) {
+            if (value == ordinal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first price not below the given cents, or size()
+     */
+    private int firstAtLeast(long cents) {
+        int low = 0;
+        int high = priceCents.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (priceCents[middle] < cents) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.setScale(2, rounding).unscaledValue().longValue();
+    }
+}
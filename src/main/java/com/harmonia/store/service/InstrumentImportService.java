@@ -0,0 +1,263 @@
+package com.harmonia.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harmonia.store.dto.ImportResult;
+import com.harmonia.store.dto.InstrumentImportRow;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk instrument import: parse → validate → batch insert.
+ *
+ * Input is read line by line, valid rows are buffered up to
+ * app.import.batch-size and inserted in one transaction per batch, relying
+ * on pooled sequence ids and hibernate.jdbc.batch_size for JDBC batching.
+ * Caches are invalidated once at the end instead of once per row.
+ */
+@Slf4j
+@Service
+@Timed("harmonia.service")
+public class InstrumentImportService {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InstrumentService instrumentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ImportResult importInstruments(InputStream input, ImportFormat format) {
+        Set<Long> categoryIds = categoryRepository.findAll().stream()
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == ImportFormat.CSV && header == null) {
+                    header = parseCsvLine(line).stream()
+                            .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                            .toList();
+                    continue;
+                }
+                run.received++;
+                try {
+                    InstrumentImportRow row = format == ImportFormat.CSV
+                            ? parseCsvRow(header, line)
+                            : objectMapper.readValue(line, InstrumentImportRow.class);
+                    run.pending.add(new PendingRow(lineNumber, toInstrument(row, categoryIds), row.categoryId()));
+                } catch (JsonProcessingException e) {
+                    run.fail(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    run.fail(lineNumber, e.getMessage());
+                }
+                if (run.pending.size() >= batchSize) {
+                    insertBatch(run);
+                }
+            }
+            insertBatch(run);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (run.imported > 0) {
+                instrumentService.evictAllCachedEntries();
+            }
+        }
+        log.info("Instrument import finished: {} received, {} imported, {} failed",
+                run.received, run.imported, run.failed);
+        return new ImportResult(run.received, run.imported, run.failed, run.errors);
+    }
+
+    /**
+     * Insert the buffered rows in one transaction. If the batch fails every
+     * row in it is reported with the database error.
+     */
+    private void insertBatch(ImportRun run) {
+        if (run.pending.isEmpty()) {
+            return;
+        }
+        List<PendingRow> batch = run.pending;
+        run.pending = new ArrayList<>(batchSize);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (PendingRow row : batch) {
+                    if (row.categoryId() != null) {
+                        row.instrument().setCategory(entityManager.getReference(Category.class, row.categoryId()));
+                    }
+                    entityManager.persist(row.instrument());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            instrumentService.instrumentsImported(batch.stream().map(PendingRow::instrument).toList());
+            run.imported += batch.size();
+        } catch (RuntimeException e) {
+            String message = "Batch insert failed: " + ExceptionUtils.getRootCauseMessage(e);
+            batch.forEach(row -> run.fail(row.line(), message));
+        }
+    }
+
+    private Instrument toInstrument(InstrumentImportRow row, Set<Long> categoryIds) {
+        if (row.type() == null) {
+            throw new IllegalArgumentException("type is required");
+        }
+        if (row.condition() == null) {
+            throw new IllegalArgumentException("condition is required");
+        }
+        if (row.categoryId() != null && !categoryIds.contains(row.categoryId())) {
+            throw new IllegalArgumentException("Unknown category: " + row.categoryId());
+        }
+        Instrument instrument = new Instrument(row.name(), row.brand(), row.price(), row.type(), row.condition());
+        instrument.setDescription(row.description());
+        instrument.setStockQuantity(row.stockQuantity() != null ? row.stockQuantity() : 0);
+
+        Set<ConstraintViolation<Instrument>> violations = validator.validate(instrument);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return instrument;
+    }
+
+    private InstrumentImportRow parseCsvRow(List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i), StringUtils.trimToNull(values.get(i)));
+        }
+        try {
+            String price = columns.get("price");
+            String type = columns.get("type");
+            String condition = columns.get("condition");
+            String stock = columns.get("stockquantity");
+            String categoryId = columns.get("categoryid");
+            return new InstrumentImportRow(
+                    columns.get("name"),
+                    columns.get("brand"),
+                    price != null ? new BigDecimal(price) : null,
+                    type != null ? InstrumentType.valueOf(type.toUpperCase(Locale.ROOT)) : null,
+                    condition != null ? Condition.valueOf(condition.toUpperCase(Locale.ROOT)) : null,
+                    stock != null ? Integer.valueOf(stock) : null,
+                    columns.get("description"),
+                    categoryId != null ? Long.valueOf(categoryId) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Split one CSV line, honouring double quotes and "" escapes.
+     * Quoted values spanning several lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record PendingRow(long line, Instrument instrument, Long categoryId) {
+    }
+
+    /**
+     * Mutable progress of a single import call
+     */
+    private class ImportRun {
+        private long received;
+        private long imported;
+        private long failed;
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+        private List<PendingRow> pending = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResult.RowError(line, message));
+            }
+        }
+    }
+}
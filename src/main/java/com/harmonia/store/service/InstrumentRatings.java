@@ -0,0 +1,105 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.dto.RatedInstrumentSummary;
+import com.harmonia.store.dto.RatingSummary;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.event.ReviewChangedEvent;
+import com.harmonia.store.repository.InstrumentRatingSummaryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-heap copy of every instrument's rating summary, so listings add
+ * ratings with one map lookup per instrument.
+ *
+ * Loaded once startup has the data, then updated after each committed
+ * review change and on invalidations of the "ratings" cache from other
+ * nodes. A periodic reload repairs anything missed while Redis was down.
+ */
+@Slf4j
+@Component
+public class InstrumentRatings {
+
+    @Autowired
+    private InstrumentRatingSummaryRepository ratingSummaryRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    private volatile Map<Long, RatingSummary> ratings = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        cacheInvalidator.onRemoteInvalidation("ratings", key -> {
+            if (key instanceof Long instrumentId) {
+                reload(instrumentId);
+            } else {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Summary of an instrument, null if it has no reviews
+     */
+    public RatingSummary get(Long instrumentId) {
+        return ratings.get(instrumentId);
+    }
+
+    /**
+     * The instruments with their review count and average rating, or
+     * unchanged in the output when includeRatings is false
+     */
+    public List<RatedInstrumentSummary> rate(List<InstrumentSummary> instruments, boolean includeRatings) {
+        return instruments.stream()
+                .map(instrument -> includeRatings
+                        ? RatedInstrumentSummary.of(instrument, ratings.get(instrument.id()))
+                        : RatedInstrumentSummary.unrated(instrument))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        reload(event.instrumentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        if (event.after() == null && event.before() != null) {
+            ratings.remove(event.before().id());
+        }
+    }
+
+    /**
+     * Reload every summary. Changes committed while the query runs may be
+     * missed until the next reload.
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    @Scheduled(fixedDelayString = "${app.reviews.ratings-refresh-interval:PT10M}",
+               initialDelayString = "${app.reviews.ratings-refresh-interval:PT10M}")
+    public void refresh() {
+        Map<Long, RatingSummary> fresh = new ConcurrentHashMap<>();
+        ratingSummaryRepository.findAll().forEach(summary ->
+                fresh.put(summary.getInstrumentId(), RatingSummary.of(summary)));
+        ratings = fresh;
+        log.debug("Loaded {} instrument rating summaries", fresh.size());
+    }
+
+    private void reload(Long instrumentId) {
+        ratingSummaryRepository.findById(instrumentId).ifPresentOrElse(
+                summary -> ratings.put(instrumentId, RatingSummary.of(summary)),
+                () -> ratings.remove(instrumentId));
+    }
+}
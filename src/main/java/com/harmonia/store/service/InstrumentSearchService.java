@@ -0,0 +1,225 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.CatalogStatistics;
+import com.harmonia.store.dto.FacetedSearchResult;
+import com.harmonia.store.dto.InstrumentFacets;
+import com.harmonia.store.dto.InstrumentSearchCriteria;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.InstrumentSpecifications;
+import com.harmonia.store.search.FacetIndex;
+import com.harmonia.store.search.TrigramIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Faceted instrument search: one Criteria query for the requested page and
+ * facet counts from the in-memory bitmap index, kept current from
+ * instrument change events.
+ */
+@Service
+@Timed("harmonia.service")
+@Transactional(readOnly = true)
+public class InstrumentSearchService {
+
+    // Facet index dimensions
+    public static final String TYPE = "type";
+    public static final String CONDITION = "condition";
+    public static final String BRAND = "brand";
+    public static final String CATEGORY = "category";
+    public static final String IN_STOCK = "inStock";
+    public static final String PRICE = "price";
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    @Qualifier("instrumentSearchIndex")
+    private TrigramIndex searchIndex;
+
+    // Replaced wholesale on rebuild, queries keep using the old index until then
+    @Autowired
+    @Qualifier("instrumentFacetIndex")
+    private volatile FacetIndex facetIndex;
+
+    // IDs changed while a rebuild is reading the catalog, null otherwise
+    private volatile Set<Long> changedDuringRebuild;
+
+    @Value("${app.search.max-text-matches:1000}")
+    private int maxTextMatches;
+
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        // Writes on other nodes evict the instrument ID, a cleared cache means a bulk import
+        cacheInvalidator.onRemoteInvalidation("instruments", key -> {
+            if (key == null) {
+                rebuildFacetIndex();
+            } else if (key instanceof Long id) {
+                reindex(id);
+            }
+        });
+    }
+
+    /**
+     * Build the facet index once startup has loaded the data. A new index is
+     * filled and then swapped in, so searches never see a partial one;
+     * instruments changed meanwhile are read again into the new index.
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    public synchronized void rebuildFacetIndex() {
+        changedDuringRebuild = ConcurrentHashMap.newKeySet();
+        try {
+            FacetIndex rebuilt = facetIndex.emptyCopy();
+            instrumentRepository.findAll().forEach(instrument -> index(rebuilt, InstrumentSnapshot.of(instrument)));
+            facetIndex = rebuilt;
+        } finally {
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            changed.forEach(this::reindex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        // Noted before applying, so a rebuild swapping indexes meanwhile reads it again
+        if (event.after() != null) {
+            changed(event.after().id());
+            index(facetIndex, event.after());
+        } else if (event.before() != null) {
+            changed(event.before().id());
+            facetIndex.remove(event.before().id());
+        }
+    }
+
+    /**
+     * Filter by any combination of text, type, condition, brand, category,
+     * price range and stock in one query, with facet counts for every dimension
+     */
+    public FacetedSearchResult search(InstrumentSearchCriteria criteria, Pageable pageable) {
+        if (criteria.minPrice() != null && criteria.maxPrice() != null
+                && criteria.minPrice().compareTo(criteria.maxPrice()) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        InstrumentService.checkSortable(pageable.getSort());
+        // The best text matches only, they become an IN list in the query
+        List<Long> textMatches = criteria.text() == null || criteria.text().isBlank() ? null
+                : searchIndex.search(criteria.text(), maxTextMatches);
+
+        Page<InstrumentSummary> results = textMatches != null && textMatches.isEmpty()
+                ? Page.empty(pageable)
+                : instrumentRepository.findAll(InstrumentSpecifications.matching(criteria, textMatches)
+                        .and(InstrumentRepository.withCategory()), pageable).map(InstrumentSummary::from);
+
+        Map<String, Collection<?>> terms = new HashMap<>();
+        terms.put(TYPE, criteria.types());
+        terms.put(CONDITION, criteria.conditions());
+        terms.put(BRAND, resolveBrands(criteria.brands()));
+        terms.put(CATEGORY, criteria.categoryIds());
+        terms.put(IN_STOCK, criteria.inStock() != null ? Set.of(criteria.inStock()) : null);
+        FacetIndex.Range price = new FacetIndex.Range(toCents(criteria.minPrice(), RoundingMode.CEILING),
+                toCents(criteria.maxPrice(), RoundingMode.FLOOR));
+        FacetIndex.Result facets = facetIndex.query(new FacetIndex.Query(terms, Map.of(PRICE, price), textMatches));
+        return new FacetedSearchResult(results, toFacets(facets));
+    }
+
+    public static long toCents(BigDecimal price) {
+        return toCents(price, RoundingMode.HALF_UP);
+    }
+
+    private static Long toCents(BigDecimal price, RoundingMode rounding) {
+        return price != null ? price.setScale(2, rounding).unscaledValue().longValue() : null;
+    }
+
+    private void reindex(Long id) {
+        changed(id);
+        instrumentRepository.findById(id).map(InstrumentSnapshot::of)
+                .ifPresentOrElse(instrument -> index(facetIndex, instrument), () -> facetIndex.remove(id));
+    }
+
+    private void changed(Long id) {
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(id);
+        }
+    }
+
+    private static void index(FacetIndex facetIndex, InstrumentSnapshot instrument) {
+        Map<String, Object> terms = new HashMap<>();
+        terms.put(TYPE, instrument.type());
+        terms.put(CONDITION, instrument.condition());
+        terms.put(BRAND, instrument.brand());
+        terms.put(CATEGORY, instrument.categoryId());
+        terms.put(IN_STOCK, instrument.stockQuantity() > 0);
+        Map<String, Long> ranges = new HashMap<>();
+        ranges.put(PRICE, toCents(instrument.price(), RoundingMode.HALF_UP));
+        facetIndex.index(instrument.id(), terms, ranges);
+    }
+
+    /**
+     * Brands are matched case-insensitively, as in the Criteria query
+     */
+    private Set<Object> resolveBrands(Set<String> brands) {
+        if (brands == null || brands.isEmpty()) {
+            return null;
+        }
+        Set<Object> resolved = facetIndex.values(BRAND).stream()
+                .filter(brand -> brands.stream().anyMatch(requested -> requested.equalsIgnoreCase((String) brand)))
+                .collect(Collectors.toSet());
+        // Keep the filter active even when no brand matches
+        return resolved.isEmpty() ? Set.of("") : resolved;
+    }
+
+    private InstrumentFacets toFacets(FacetIndex.Result result) {
+        Map<InstrumentType, Long> types = new EnumMap<>(InstrumentType.class);
+        result.termCounts().get(TYPE).forEach((type, count) -> types.put((InstrumentType) type, count));
+        Map<Condition, Long> conditions = new EnumMap<>(Condition.class);
+        result.termCounts().get(CONDITION).forEach((condition, count) -> conditions.put((Condition) condition, count));
+        Map<String, Long> brands = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        result.termCounts().get(BRAND).forEach((brand, count) -> brands.merge((String) brand, count, Long::sum));
+        Map<Long, Long> categories = new TreeMap<>();
+        result.termCounts().get(CATEGORY).forEach((category, count) -> categories.put((Long) category, count));
+        Map<Object, Long> stock = result.termCounts().get(IN_STOCK);
+
+        long[] bounds = facetIndex.bucketBounds(PRICE);
+        long[] counts = result.rangeCounts().get(PRICE);
+        List<CatalogStatistics.PriceBucket> prices = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            prices.add(new CatalogStatistics.PriceBucket(
+                    i == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(bounds[i - 1], 2),
+                    i < bounds.length ? BigDecimal.valueOf(bounds[i], 2) : null,
+                    counts[i]));
+        }
+        return new InstrumentFacets(types, conditions, brands, categories, prices,
+                stock.getOrDefault(Boolean.TRUE, 0L), stock.getOrDefault(Boolean.FALSE, 0L));
+    }
+}
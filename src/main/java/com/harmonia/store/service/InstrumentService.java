@@ -1,147 +1,409 @@
 package com.harmonia.store.service;
 
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.cache.SearchResultCache;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.event.CatalogLoadedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
 import com.harmonia.store.model.Instrument;
 import com.harmonia.store.model.InstrumentType;
 import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.search.TrigramIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("harmonia.service")
 @Transactional
 public class InstrumentService {
 
+    private static final String CACHE = "instruments";
+
     @Autowired
     private InstrumentRepository instrumentRepository;
-    
-    // Simple in-memory cache for frequent searches
-    private final Map<String, List<Instrument>> searchCache = new HashMap<>();
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CatalogStatisticsService statisticsService;
+
+    // In-memory columnar copy of the catalog for price, stock and type queries
+    @Autowired
+    private InstrumentCatalog instrumentCatalog;
+
+    // Bounded local cache for frequent searches, see app.search.cache
+    @Autowired
+    private SearchResultCache<InstrumentSummary> searchCache;
+
+    // Trigram index over name, brand and description
+    @Autowired
+    @Qualifier("instrumentSearchIndex")
+    private TrigramIndex searchIndex;
+
+    @Value("${app.search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    @PostConstruct
+    void registerRemoteInvalidation() {
+        // Every instrument write evicts 'all' and the instrument ID, so a peer's
+        // write clears our search results and refreshes the indexed instrument
+        cacheInvalidator.onRemoteInvalidation(CACHE, key -> {
+            if (key == null || "all".equals(key)) {
+                searchCache.invalidateAll();
+            } else if (key instanceof Long id) {
+                instrumentRepository.findById(id).ifPresentOrElse(this::indexInstrument, () -> searchIndex.remove(id));
+            }
+        });
+    }
+
+    /**
+     * Build the search index once startup has loaded the data
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndex() {
+        searchIndex.clear();
+        instrumentRepository.findAll().forEach(this::indexInstrument);
+        searchCache.invalidateAll();
+    }
 
     /**
      * Get all instruments with cache
      */
-    @Cacheable(value = "instruments", key = "'all'")
-    public List<Instrument> getAllInstruments() {
-        return instrumentRepository.findAll();
+    @Cacheable(value = "instruments", key = "'all'", sync = true)
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> getAllInstruments() {
+        return instrumentRepository.findAllSummaries();
     }
 
     /**
      * Get instrument by ID with cache
      */
-    @Cacheable(value = "instruments", key = "#id")
-    public Optional<Instrument> getInstrumentById(Long id) {
-        return instrumentRepository.findById(id);
+    @Cacheable(value = "instruments", key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public Optional<InstrumentSummary> getInstrumentById(Long id) {
+        return instrumentRepository.findSummaryById(id);
     }
 
     /**
-     * Add instrument with cache invalidation
+     * Add instrument with targeted cache invalidation
      */
-    @CacheEvict(value = "instruments", allEntries = true)
     public Instrument addInstrument(Instrument instrument) {
-        return instrumentRepository.save(instrument);
+        Instrument saved = instrumentRepository.save(instrument);
+        InstrumentSnapshot after = InstrumentSnapshot.of(saved);
+        evictCachedEntries(after);
+        eventPublisher.publishEvent(new InstrumentChangedEvent(null, after));
+        return saved;
     }
 
     /**
-     * Update instrument with cache invalidation
+     * Update instrument with targeted cache invalidation
      */
-    @CacheEvict(value = "instruments", allEntries = true)
     public Instrument updateInstrument(Instrument instrument) {
-        if (!instrumentRepository.existsById(instrument.getId())) {
-            throw new RuntimeException("Instrument not found");
-        }
+        Instrument existing = instrumentRepository.findById(instrument.getId())
+                .orElseThrow(() -> new RuntimeException("Instrument not found"));
+        InstrumentSnapshot before = InstrumentSnapshot.of(existing);
         Instrument updated = instrumentRepository.save(instrument);
-        searchCache.clear();
+        InstrumentSnapshot after = InstrumentSnapshot.of(updated);
+        evictCachedEntries(before, after);
+        eventPublisher.publishEvent(new InstrumentChangedEvent(before, after));
         return updated;
     }
 
     /**
-     * Delete instrument with cache invalidation
+     * Delete instrument with targeted cache invalidation
      */
-    @CacheEvict(value = "instruments", allEntries = true)
     public void deleteInstrument(Long id) {
+        InstrumentSnapshot before = instrumentRepository.findById(id)
+                .map(InstrumentSnapshot::of)
+                .orElse(null);
         instrumentRepository.deleteById(id);
-        searchCache.clear();
+        evictCachedEntries(before);
+        if (before != null) {
+            eventPublisher.publishEvent(new InstrumentChangedEvent(before, null));
+        }
     }
 
     /**
-     * Simple search by name
+     * Apply a committed change to the search index and drop the cached
+     * searches it can affect. Runs after commit so a rolled back write
+     * never reaches the index.
      */
-    @Cacheable(value = "instruments", key = "'search_' + #name")
-    public List<Instrument> searchByName(String name) {
-        return instrumentRepository.findByNameContainingIgnoreCase(name);
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        InstrumentSnapshot before = event.before();
+        InstrumentSnapshot after = event.after();
+        if (after == null) {
+            searchIndex.remove(before.id());
+        } else if (before == null || !before.sameText(after)) {
+            searchIndex.index(after.id(), after.name(), after.brand(), after.description());
+        }
+        searchCache.invalidateIf(term -> before != null && before.matches(term)
+                || after != null && after.matches(term));
+    }
+
+    /**
+     * Ranked search over name, brand and description using the trigram
+     * index, served from the local search cache
+     */
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> searchByName(String name) {
+        return searchCache.get(name, query -> findAllInOrder(searchIndex.search(query, maxSearchResults)));
     }
 
     /**
      * Search by instrument type
      */
-    @Cacheable(value = "instruments", key = "'type_' + #type")
-    public List<Instrument> getInstrumentsByType(InstrumentType type) {
-        return instrumentRepository.findByType(type);
+    @Cacheable(value = "instruments", key = "'type_' + #type", sync = true)
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> getInstrumentsByType(InstrumentType type) {
+        return instrumentRepository.findSummariesByType(type);
     }
 
     /**
-     * Search by price range
+     * Search by price range, from the catalog snapshot when it is current
      */
-    @Cacheable(value = "instruments", key = "'price_' + #minPrice + '_' + #maxPrice")
-    public List<Instrument> getInstrumentsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return instrumentRepository.findByPriceBetween(minPrice, maxPrice);
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> getInstrumentsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        InstrumentCatalogSnapshot snapshot = instrumentCatalog.current();
+        return snapshot != null ? snapshot.findByPriceBetween(minPrice, maxPrice)
+                : instrumentRepository.findSummariesByPriceBetween(minPrice, maxPrice);
     }
 
     /**
-     * Get instruments in stock
+     * Get instruments in stock, from the catalog snapshot when it is current
      */
-    public List<Instrument> getInStockInstruments() {
-        return instrumentRepository.findByStockQuantityGreaterThan(0);
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> getInStockInstruments() {
+        InstrumentCatalogSnapshot snapshot = instrumentCatalog.current();
+        return snapshot != null ? snapshot.findByStock(true)
+                : instrumentRepository.findSummariesByStockQuantityGreaterThan(0);
     }
 
     /**
-     * Get instruments out of stock
+     * Get instruments out of stock, from the catalog snapshot when it is current
      */
-    public List<Instrument> getOutOfStockInstruments() {
-        return instrumentRepository.findByStockQuantityLessThanEqual(0);
+    @Transactional(readOnly = true)
+    public List<InstrumentSummary> getOutOfStockInstruments() {
+        InstrumentCatalogSnapshot snapshot = instrumentCatalog.current();
+        return snapshot != null ? snapshot.findByStock(false)
+                : instrumentRepository.findSummariesByStockQuantityLessThanEqual(0);
     }
 
     /**
      * Get instruments paginated
      */
-    public Page<Instrument> getInstrumentsPaginated(Pageable pageable) {
-        return instrumentRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Page<InstrumentSummary> getInstrumentsPaginated(Pageable pageable) {
+        checkPageSize(pageable.getPageSize());
+        checkSortable(pageable.getSort());
+        return instrumentRepository.findSummaries(pageable);
+    }
+
+    /**
+     * Get instruments with keyset pagination: seeks past the last row of the
+     * previous page on the (sort, id) index instead of using OFFSET, and skips
+     * the count query. The category is fetched in the same select.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<InstrumentSummary> getInstrumentsByCursor(String sortField, Sort.Direction direction,
+                                                         int size, String cursor) {
+        if (!KeysetCursor.isSortable(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        }
+        checkPageSize(size);
+        Specification<Instrument> specification = InstrumentRepository.withCategory();
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.sort().equals(sortField) || after.direction() != direction) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            specification = specification.and(after.toSpecification());
+        }
+        Sort sort = Sort.by(direction, sortField);
+        if (!"id".equals(sortField)) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        Sort keysetSort = sort;
+        // Ordered by the specification: sortBy on the fluent query repeats the
+        // ORDER BY columns, and the repeated list no longer matches the index
+        specification = specification.and((root, query, builder) -> {
+            query.orderBy(QueryUtils.toOrders(keysetSort, root, builder));
+            return null;
+        });
+        // One extra row tells whether there is a next page
+        List<Instrument> rows = instrumentRepository.findBy(specification, query -> query.limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Instrument> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Instrument last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(sortField, direction,
+                    new BeanWrapperImpl(last).getPropertyValue(sortField), last.getId()).encode();
+        }
+        return new CursorPage<>(content.stream().map(InstrumentSummary::from).toList(), content.size(),
+                hasNext, nextCursor);
     }
 
     /**
-     * Update instrument stock
+     * Update instrument stock. The row is locked so no concurrent stock
+     * change lands between the before and after snapshots.
      */
     public void updateStock(Long instrumentId, int newQuantity) {
-        Instrument instrument = instrumentRepository.findById(instrumentId)
+        Instrument instrument = instrumentRepository.findLockedById(instrumentId)
                 .orElseThrow(() -> new RuntimeException("Instrument not found"));
-        instrument.setStockQuantity(newQuantity);
-        instrumentRepository.save(instrument);
+        // The atomic stock updates bypass the loaded instance, so re-read it under the lock and
+        // after the update rather than trust what this transaction loaded earlier
+        entityManager.refresh(instrument);
+        InstrumentSnapshot before = InstrumentSnapshot.of(instrument);
+        instrumentRepository.setStock(instrumentId, newQuantity, LocalDateTime.now());
+        entityManager.refresh(instrument);
+        InstrumentSnapshot after = InstrumentSnapshot.of(instrument);
+        evictCachedEntries(after);
+        eventPublisher.publishEvent(new InstrumentChangedEvent(before, after));
     }
 
     /**
-     * Add stock to instrument
+     * Add stock to instrument, as a single atomic update
      */
     public void addStock(Long instrumentId, int quantityToAdd) {
-        Instrument instrument = instrumentRepository.findById(instrumentId)
-                .orElseThrow(() -> new RuntimeException("Instrument not found"));
-        instrument.addStock(quantityToAdd);
-        instrumentRepository.save(instrument);
+        if (instrumentRepository.incrementStock(instrumentId, quantityToAdd, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Instrument not found");
+        }
+        stockChanged(instrumentId, quantityToAdd);
+    }
+
+    /**
+     * Evict the cached entries holding an instrument and publish the change
+     * after its stock was atomically changed by delta units
+     */
+    public void stockChanged(Long instrumentId, int delta) {
+        // A projection, so an instance loaded earlier in the transaction cannot hide the new stock
+        instrumentRepository.findSummaryById(instrumentId).map(InstrumentSnapshot::of).ifPresent(after -> {
+            evictCachedEntries(after);
+            eventPublisher.publishEvent(new InstrumentChangedEvent(
+                    after.withStockQuantity(after.stockQuantity() - delta), after));
+        });
     }
 
     /**
-     * Get count by type
+     * Get count by type from the catalog snapshot, or the statistics
+     * counters while the snapshot is being refreshed
      */
+    @Transactional(readOnly = true)
     public long getCountByType(InstrumentType type) {
-        return instrumentRepository.countByType(type);
+        InstrumentCatalogSnapshot snapshot = instrumentCatalog.current();
+        return snapshot != null ? snapshot.countByType(type) : statisticsService.getInstrumentCount(type);
+    }
+
+    /**
+     * Publish bulk-inserted instruments so they are indexed once the import
+     * batch commits. Caches are invalidated separately, once per import.
+     */
+    public void instrumentsImported(Collection<Instrument> instruments) {
+        for (Instrument instrument : instruments) {
+            eventPublisher.publishEvent(new InstrumentChangedEvent(null, InstrumentSnapshot.of(instrument)));
+        }
+    }
+
+    /**
+     * Drop every cached instrument entry and search result, used after bulk
+     * writes and category renames. Clearing the cache also changes every
+     * instrument ETag and, once committed, outdates the catalog snapshot.
+     */
+    public void evictAllCachedEntries() {
+        cacheInvalidator.clear(CACHE);
+        searchCache.invalidateAll();
+    }
+
+    private void checkPageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+    }
+
+    /**
+     * Only the indexed columns can be sorted on, an unknown property would
+     * fail deep in the query instead of as a bad request
+     */
+    static void checkSortable(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!KeysetCursor.isSortable(order.getProperty())) {
+                throw new IllegalArgumentException("Unsupported sort field: " + order.getProperty());
+            }
+        }
+    }
+
+    private void indexInstrument(Instrument instrument) {
+        searchIndex.index(instrument.getId(), instrument.getName(), instrument.getBrand(), instrument.getDescription());
+    }
+
+    /**
+     * Load instruments by ID keeping the order of the given IDs
+     */
+    private List<InstrumentSummary> findAllInOrder(List<Long> ids) {
+        Map<Long, InstrumentSummary> byId = instrumentRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(InstrumentSummary::id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Evict only the cache entries that can contain the given instrument
+     * versions: their IDs, the 'all' list and their type lists. Cached
+     * searches are dropped once the change commits, see onInstrumentChanged.
+     */
+    private void evictCachedEntries(InstrumentSnapshot... versions) {
+        List<InstrumentSnapshot> changed = Arrays.stream(versions).filter(Objects::nonNull).toList();
+        Set<Object> keys = new HashSet<>();
+        keys.add("all");
+        for (InstrumentSnapshot version : changed) {
+            keys.add(version.id());
+            keys.add("type_" + version.type());
+        }
+        cacheInvalidator.evict(CACHE, keys);
     }
-}
+}
\ No newline at end of file
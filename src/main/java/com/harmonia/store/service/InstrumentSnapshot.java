@@ -0,0 +1,57 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the instrument fields that cache keys and catalog
+ * statistics depend on. Taken before a write because JPA merges the new
+ * state into the managed entity.
+ */
+public record InstrumentSnapshot(Long id, String name, String brand, String description,
+                                 InstrumentType type, BigDecimal price, Condition condition,
+                                 int stockQuantity, Long categoryId) {
+
+    public static InstrumentSnapshot of(Instrument instrument) {
+        return new InstrumentSnapshot(instrument.getId(), instrument.getName(), instrument.getBrand(),
+                instrument.getDescription(), instrument.getType(), instrument.getPrice(),
+                instrument.getCondition(),
+                instrument.getStockQuantity() != null ? instrument.getStockQuantity() : 0,
+                instrument.getCategory() != null ? instrument.getCategory().getId() : null);
+    }
+
+    public static InstrumentSnapshot of(InstrumentSummary summary) {
+        return new InstrumentSnapshot(summary.id(), summary.name(), summary.brand(), summary.description(),
+                summary.type(), summary.price(), summary.condition(),
+                summary.stockQuantity() != null ? summary.stockQuantity() : 0, summary.categoryId());
+    }
+
+    public InstrumentSnapshot withStockQuantity(int quantity) {
+        return new InstrumentSnapshot(id, name, brand, description, type, price, condition, quantity, categoryId);
+    }
+
+    /**
+     * Whether a text search for the given term can return this instrument
+     */
+    public boolean matches(String term) {
+        String lowerTerm = term.toLowerCase();
+        return contains(name, lowerTerm) || contains(brand, lowerTerm) || contains(description, lowerTerm);
+    }
+
+    /**
+     * Whether the indexed text (name, brand and description) is the same in both versions
+     */
+    public boolean sameText(InstrumentSnapshot other) {
+        return Objects.equals(name, other.name) && Objects.equals(brand, other.brand)
+                && Objects.equals(description, other.description);
+    }
+
+    private static boolean contains(String text, String lowerTerm) {
+        return text != null && text.toLowerCase().contains(lowerTerm);
+    }
+}
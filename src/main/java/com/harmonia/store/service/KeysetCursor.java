@@ -0,0 +1,98 @@
+package com.harmonia.store.service;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset pagination of instruments and
+ * reviews: the sort column, direction and the sort/id values of the last
+ * row of a page.
+ */
+public record KeysetCursor(String sort, Sort.Direction direction, Object value, Long id) {
+
+    // Sortable columns and how to read their values back from a token
+    private static final Map<String, Function<String, Object>> SORTABLE = Map.of(
+            "id", Long::valueOf,
+            "name", value -> value,
+            "brand", value -> value,
+            "price", BigDecimal::new,
+            "stockQuantity", Integer::valueOf,
+            "createdAt", LocalDateTime::parse);
+
+    public static boolean isSortable(String sort) {
+        return SORTABLE.containsKey(sort);
+    }
+
+    /**
+     * Rows after this cursor in its sort order, as sort >= value AND
+     * (sort > value OR id > lastId), mirrored for DESC. The leading range
+     * lets the database seek on the (sort, id) index; the equivalent
+     * sort > value OR (sort = value AND id > lastId) scans from the start.
+     */
+    public <T> Specification<T> toSpecification() {
+        return (root, query, builder) -> {
+            Predicate idAfter = direction.isAscending()
+                    ? builder.greaterThan(root.get("id"), id)
+                    : builder.lessThan(root.get("id"), id);
+            if ("id".equals(sort)) {
+                return idAfter;
+            }
+            Expression<?> sortPath = root.get(sort);
+            return builder.and(compare(builder, sortPath, true),
+                    builder.or(compare(builder, sortPath, false), idAfter));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate compare(CriteriaBuilder builder, Expression<?> path, boolean inclusive) {
+        Expression<Comparable> comparable = (Expression<Comparable>) path;
+        Comparable bound = (Comparable) value;
+        if (direction.isAscending()) {
+            return inclusive ? builder.greaterThanOrEqualTo(comparable, bound) : builder.greaterThan(comparable, bound);
+        }
+        return inclusive ? builder.lessThanOrEqualTo(comparable, bound) : builder.lessThan(comparable, bound);
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sort);
+            out.writeUTF(direction.name());
+            out.writeUTF(String.valueOf(value));
+            out.writeLong(id);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static KeysetCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            String sort = in.readUTF();
+            Sort.Direction direction = Sort.Direction.valueOf(in.readUTF());
+            String rawValue = in.readUTF();
+            long id = in.readLong();
+            Function<String, Object> parser = SORTABLE.get(sort);
+            if (parser == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(sort, direction, parser.apply(rawValue), id);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
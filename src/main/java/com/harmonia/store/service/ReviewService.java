@@ -0,0 +1,246 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.RatingSummary;
+import com.harmonia.store.dto.ReviewSummary;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.event.ReviewChangedEvent;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentRatingSummary;
+import com.harmonia.store.model.Review;
+import com.harmonia.store.repository.InstrumentRatingSummaryRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.ReviewRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reviews of an instrument and its rating summary.
+ *
+ * Every review write adjusts the instrument's InstrumentRatingSummary row
+ * with a single atomic update in the same transaction, so the summary is
+ * never recomputed from the reviews table. Reviews are listed newest first
+ * with keyset pagination on (createdAt, id).
+ */
+@Service
+@Timed("harmonia.service")
+@Transactional
+public class ReviewService {
+
+    private static final String CACHE = "ratings";
+    private static final String SORT = "createdAt";
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, SORT, "id");
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private InstrumentRatingSummaryRepository ratingSummaryRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * One page of an instrument's reviews, newest first, or empty if the
+     * instrument does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<CursorPage<ReviewSummary>> getReviews(Long instrumentId, int size, String cursor) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        Specification<Review> specification = (root, query, builder) -> {
+            // Ordered here like the instrument cursor, so the ORDER BY matches idx_review_instrument_created
+            query.orderBy(QueryUtils.toOrders(NEWEST_FIRST, root, builder));
+            return builder.equal(root.get("instrument").get("id"), instrumentId);
+        };
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.sort().equals(SORT) || after.direction() != Sort.Direction.DESC) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            specification = specification.and(after.toSpecification());
+        }
+        if (!instrumentRepository.existsById(instrumentId)) {
+            return Optional.empty();
+        }
+        // One extra row tells whether there is a next page
+        List<Review> rows = reviewRepository.findBy(specification, query -> query.limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Review> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Review last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(SORT, Sort.Direction.DESC, last.getCreatedAt(), last.getId()).encode();
+        }
+        return Optional.of(new CursorPage<>(content.stream().map(ReviewSummary::from).toList(),
+                content.size(), hasNext, nextCursor));
+    }
+
+    /**
+     * Rating summary of an instrument, empty if the instrument does not exist
+     */
+    @Cacheable(value = "ratings", key = "#instrumentId", sync = true)
+    @Transactional(readOnly = true)
+    public Optional<RatingSummary> getRatingSummary(Long instrumentId) {
+        Optional<InstrumentRatingSummary> summary = ratingSummaryRepository.findById(instrumentId);
+        if (summary.isPresent()) {
+            return summary.map(RatingSummary::of);
+        }
+        return instrumentRepository.existsById(instrumentId)
+                ? Optional.of(RatingSummary.empty(instrumentId))
+                : Optional.empty();
+    }
+
+    /**
+     * Add a review to an instrument, empty if the instrument does not exist
+     */
+    public Optional<Review> addReview(Long instrumentId, Review review) {
+        Optional<Instrument> instrument = instrumentRepository.findById(instrumentId);
+        if (instrument.isEmpty()) {
+            return Optional.empty();
+        }
+        review.setId(null);
+        review.setInstrument(instrument.get());
+        Review saved = reviewRepository.save(review);
+        ratingChanged(instrumentId, null, saved.getRating());
+        return Optional.of(saved);
+    }
+
+    /**
+     * Replace the comment, rating and author of a review, empty if the
+     * instrument has no such review
+     */
+    public Optional<Review> updateReview(Long instrumentId, Long reviewId, Review changes) {
+        Optional<Review> existing = findReview(instrumentId, reviewId);
+        existing.ifPresent(review -> {
+            Integer before = review.getRating();
+            review.setComment(changes.getComment());
+            review.setRating(changes.getRating());
+            review.setAuthorName(changes.getAuthorName());
+            review.setAuthorEmail(changes.getAuthorEmail());
+            reviewRepository.save(review);
+            ratingChanged(instrumentId, before, review.getRating());
+        });
+        return existing;
+    }
+
+    /**
+     * Delete a review, false if the instrument has no such review
+     */
+    public boolean deleteReview(Long instrumentId, Long reviewId) {
+        Optional<Review> existing = findReview(instrumentId, reviewId);
+        existing.ifPresent(review -> {
+            reviewRepository.delete(review);
+            ratingChanged(instrumentId, review.getRating(), null);
+        });
+        return existing.isPresent();
+    }
+
+    /**
+     * Recompute every rating summary from the reviews, for reviews written
+     * outside this service (sample data)
+     */
+    public void rebuildRatingSummaries() {
+        ratingSummaryRepository.deleteAllSummaries();
+        ratingSummaryRepository.insertFromReviews(LocalDateTime.now());
+        cacheInvalidator.clear(CACHE);
+    }
+
+    /**
+     * A deleted instrument's reviews go with it, and so does its summary
+     */
+    @EventListener
+    public void onInstrumentChanged(InstrumentChangedEvent event) {
+        if (event.after() == null && event.before() != null) {
+            Long instrumentId = event.before().id();
+            if (ratingSummaryRepository.existsById(instrumentId)) {
+                ratingSummaryRepository.deleteById(instrumentId);
+            }
+            cacheInvalidator.evict(CACHE, List.of(instrumentId));
+        }
+    }
+
+    /**
+     * Drop the cached summary once the review change has committed, so a
+     * read racing the write cannot cache the old counts again
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        cacheInvalidator.evict(CACHE, List.of(event.instrumentId()));
+    }
+
+    private Optional<Review> findReview(Long instrumentId, Long reviewId) {
+        return reviewRepository.findById(reviewId)
+                .filter(review -> review.getInstrument().getId().equals(instrumentId));
+    }
+
+    /**
+     * Move one review from the before rating to the after rating (null for
+     * none) in the instrument's summary. The first review of an instrument
+     * creates the row under a lock on the instrument, so concurrent first
+     * reviews do not both insert it. The cached summary is evicted after
+     * commit, see onReviewChanged.
+     */
+    private void ratingChanged(Long instrumentId, Integer before, Integer after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        long[] stars = new long[6];
+        long count = 0;
+        long total = 0;
+        if (before != null) {
+            stars[before]--;
+            count--;
+            total -= before;
+        }
+        if (after != null) {
+            stars[after]++;
+            count++;
+            total += after;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (ratingSummaryRepository.addCounts(instrumentId, count, total,
+                stars[1], stars[2], stars[3], stars[4], stars[5], now) == 0) {
+            instrumentRepository.findLockedById(instrumentId);
+            if (ratingSummaryRepository.addCounts(instrumentId, count, total,
+                    stars[1], stars[2], stars[3], stars[4], stars[5], now) == 0) {
+                InstrumentRatingSummary summary = new InstrumentRatingSummary(instrumentId);
+                summary.setReviewCount(count);
+                summary.setRatingTotal(total);
+                summary.setOneStar(stars[1]);
+                summary.setTwoStars(stars[2]);
+                summary.setThreeStars(stars[3]);
+                summary.setFourStars(stars[4]);
+                summary.setFiveStars(stars[5]);
+                summary.setUpdatedAt(now);
+                ratingSummaryRepository.save(summary);
+            }
+        }
+        eventPublisher.publishEvent(new ReviewChangedEvent(instrumentId, before, after));
+    }
+}
@@ -0,0 +1,109 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.event.CatalogLoadedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the slow part of startup off the critical path of context startup:
+ * sample data seeding, the in-memory index builds (CatalogLoadedEvent) and
+ * the cache warm-up, on a background thread once the context is ready. The
+ * readiness probe reports OUT_OF_SERVICE until it has finished, see
+ * StartupConfig.
+ */
+@Slf4j
+@Service
+public class StartupService {
+
+    @Autowired
+    private DataInitializationService dataInitializationService;
+
+    @Autowired
+    private CacheWarmupService cacheWarmupService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.sample-data.enabled:true}")
+    private boolean sampleDataEnabled;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        record("contextStartedMs", event.getTimeTaken().toMillis());
+        Thread.ofPlatform().name("startup").daemon().start(this::run);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            boolean seeded = sampleDataEnabled && dataInitializationService.seedIfEmpty();
+            record("sampleDataMs", elapsedMillis(start));
+
+            long indexStart = System.nanoTime();
+            eventPublisher.publishEvent(new CatalogLoadedEvent(seeded));
+            record("indexesMs", elapsedMillis(indexStart));
+
+            long warmupStart = System.nanoTime();
+            CacheWarmupService.Result warmup = cacheWarmupService.warmUp();
+            record("cacheWarmupMs", elapsedMillis(warmupStart));
+            record("cacheWarmup", warmup);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            record("failure", "Interrupted");
+        } catch (RuntimeException | Error e) {
+            // Serve what there is rather than never becoming ready
+            log.error("Startup tasks failed, the node becomes ready without them", e);
+            record("failure", e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (e instanceof Error) {
+                throw e;
+            }
+        } finally {
+            long bootToReady = ManagementFactory.getRuntimeMXBean().getUptime();
+            record("bootToReadyMs", bootToReady);
+            finished.countDown();
+            log.info("Ready for traffic {} ms after JVM start ({} ms of background startup)",
+                    bootToReady, elapsedMillis(start));
+        }
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * Wait for the background startup tasks, false if they are still running after the timeout
+     */
+    public boolean awaitFinished(Duration timeout) throws InterruptedException {
+        return finished.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Duration of each startup phase so far, in milliseconds
+     */
+    public synchronized Map<String, Object> getReport() {
+        return new LinkedHashMap<>(report);
+    }
+
+    private synchronized void record(String name, Object value) {
+        report.put(name, value);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,141 @@
+package com.harmonia.store.service;
+
+import com.harmonia.store.exception.InsufficientStockException;
+import com.harmonia.store.exception.InvalidReservationStateException;
+import com.harmonia.store.model.ReservationStatus;
+import com.harmonia.store.model.StockReservation;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.StockReservationRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reserve → commit / release of instrument stock.
+ *
+ * Stock is taken with a single conditional UPDATE (stock = stock - n where
+ * stock >= n), so concurrent reservations never oversell and never lose
+ * updates. Reservation state changes are compare-and-set updates as well,
+ * which makes a release or expiry return the stock at most once.
+ */
+@Slf4j
+@Service
+@Timed("harmonia.service")
+@Transactional
+public class StockReservationService {
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private InstrumentService instrumentService;
+
+    @Value("${app.stock.reservation-ttl:15m}")
+    private Duration reservationTtl;
+
+    /**
+     * Take stock for a pending order, empty if the instrument does not exist
+     */
+    public Optional<StockReservation> reserve(Long instrumentId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (instrumentRepository.decrementStock(instrumentId, quantity, now) == 0) {
+            if (!instrumentRepository.existsById(instrumentId)) {
+                return Optional.empty();
+            }
+            throw new InsufficientStockException(instrumentId, quantity);
+        }
+        StockReservation reservation = reservationRepository.save(
+                new StockReservation(instrumentId, quantity, now.plus(reservationTtl)));
+        instrumentService.stockChanged(instrumentId, -quantity);
+        return Optional.of(reservation);
+    }
+
+    /**
+     * Confirm a reservation, the stock stays taken
+     */
+    public Optional<StockReservation> commit(Long reservationId) {
+        if (!transition(reservationId, ReservationStatus.COMMITTED)) {
+            return Optional.empty();
+        }
+        return reservationRepository.findById(reservationId);
+    }
+
+    /**
+     * Cancel a reservation and return its stock
+     */
+    public Optional<StockReservation> release(Long reservationId) {
+        if (!transition(reservationId, ReservationStatus.RELEASED)) {
+            return Optional.empty();
+        }
+        Optional<StockReservation> reservation = reservationRepository.findById(reservationId);
+        reservation.ifPresent(this::restoreStock);
+        return reservation;
+    }
+
+    /**
+     * Get reservation by ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<StockReservation> getReservationById(Long id) {
+        return reservationRepository.findById(id);
+    }
+
+    /**
+     * Return the stock of reservations that were neither committed nor
+     * released in time
+     */
+    @Scheduled(fixedDelayString = "${app.stock.expiry-check-interval:PT60S}")
+    public void releaseExpiredReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired =
+                reservationRepository.findTop500ByStatusAndExpiresAtBefore(ReservationStatus.RESERVED, now);
+        int released = 0;
+        for (StockReservation reservation : expired) {
+            if (reservationRepository.transition(reservation.getId(), ReservationStatus.RESERVED,
+                    ReservationStatus.EXPIRED, now) == 1) {
+                restoreStock(reservation);
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+    }
+
+    /**
+     * Move a RESERVED reservation to the given state. Returns false if the
+     * reservation does not exist, fails if another request already
+     * committed, released or expired it.
+     */
+    private boolean transition(Long reservationId, ReservationStatus target) {
+        if (reservationRepository.transition(reservationId, ReservationStatus.RESERVED, target,
+                LocalDateTime.now()) == 0) {
+            Optional<StockReservation> current = reservationRepository.findById(reservationId);
+            if (current.isEmpty()) {
+                return false;
+            }
+            throw new InvalidReservationStateException(reservationId, current.get().getStatus());
+        }
+        return true;
+    }
+
+    private void restoreStock(StockReservation reservation) {
+        instrumentRepository.incrementStock(reservation.getInstrumentId(), reservation.getQuantity(), LocalDateTime.now());
+        instrumentService.stockChanged(reservation.getInstrumentId(), reservation.getQuantity());
+    }
+}
@@ -0,0 +1,81 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.BinaryRedisSerializer;
+import com.harmonia.store.config.CacheConfig;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.InstrumentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = CacheConfig.jsonRedisSerializer();
+
+    @Test
+    public void testRoundTripsCachedTypesAndListsCompactly() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(CacheConfig.CACHED_TYPES, 0, json);
+        List<InstrumentSummary> summaries = summaries(50);
+        byte[] bytes = serializer.serialize(summaries);
+
+        assertEquals(summaries, serializer.deserialize(bytes));
+        assertEquals(summaries.get(0), serializer.deserialize(serializer.serialize(summaries.get(0))));
+        assertTrue(bytes.length * 2 < json.serialize(summaries).length,
+                "binary " + bytes.length + " bytes vs json " + json.serialize(summaries).length);
+
+        Customer customer = new Customer("John", "Smith", "john.smith@email.com");
+        customer.setId(7L);
+        customer.setTotalPurchases(new BigDecimal("3316.87"));
+        customer.setCreatedAt(LocalDateTime.now());
+        assertEquals(customer, serializer.deserialize(serializer.serialize(customer)));
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+    }
+
+    @Test
+    public void testCompressesLargeValuesOnly() {
+        BinaryRedisSerializer compressing = new BinaryRedisSerializer(CacheConfig.CACHED_TYPES, 512, json);
+        BinaryRedisSerializer plain = new BinaryRedisSerializer(CacheConfig.CACHED_TYPES, 0, json);
+        List<InstrumentSummary> summaries = List.copyOf(summaries(100));
+
+        byte[] compressed = compressing.serialize(summaries);
+        assertTrue(compressed.length < plain.serialize(summaries).length);
+        assertEquals(summaries, compressing.deserialize(compressed));
+        // A single summary stays below the threshold
+        assertEquals(plain.serialize(summaries.get(0)).length, compressing.serialize(summaries.get(0)).length);
+    }
+
+    @Test
+    public void testOtherTypesFallBackAndForeignEntriesMiss() {
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(CacheConfig.CACHED_TYPES, 0, json);
+        Map<String, Object> value = new HashMap<>(Map.of("count", 3));
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+
+        // JSON written before switching codecs, and a schema this node does not know
+        assertNull(serializer.deserialize(json.serialize(summaries(1))));
+        BinaryRedisSerializer customersOnly = new BinaryRedisSerializer(List.of(Customer.class), 0, json);
+        assertNull(customersOnly.deserialize(serializer.serialize(summaries(1))));
+    }
+
+    private static List<InstrumentSummary> summaries(int count) {
+        List<InstrumentSummary> summaries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            summaries.add(new InstrumentSummary((long) i, "Stratocaster " + i, "Fender", new BigDecimal("1299.99"),
+                    InstrumentType.GUITAR, Condition.NEW, "Classic electric guitar with maple neck", 5,
+                    1L, "Guitars", now, now));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,92 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.TwoLevelCacheManager;
+import com.harmonia.store.config.CacheWarmupProperties;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.service.CacheWarmupService;
+import com.harmonia.store.service.CategoryService;
+import com.harmonia.store.service.CustomerService;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The warm-up alone in a Spring context, with the cached services mocked
+ */
+@SpringBootTest(classes = CacheWarmupService.class, properties = {
+        "app.cache.warmup.parallelism=2", "app.cache.warmup.timeout=PT1S"})
+@EnableConfigurationProperties(CacheWarmupProperties.class)
+public class CacheWarmupServiceTest {
+
+    // The 'all' lists, one list per type, the categories and the customers
+    private static final int FIXED_LOADS = InstrumentType.values().length + 3;
+
+    @Autowired
+    private CacheWarmupService warmupService;
+
+    @MockBean
+    private InstrumentService instrumentService;
+
+    @MockBean
+    private CategoryService categoryService;
+
+    @MockBean
+    private CustomerService customerService;
+
+    @MockBean
+    private TwoLevelCacheManager cacheManager;
+
+    @Test
+    public void testLoadsListsCategoriesAndRecentKeys() throws Exception {
+        Category guitars = new Category("Guitars", "String instruments");
+        guitars.setId(4L);
+        Category drums = new Category("Drums", "Percussion");
+        drums.setId(5L);
+        when(categoryService.getAllCategories()).thenReturn(List.of(guitars, drums));
+        when(cacheManager.recentKeys("instruments")).thenReturn(List.of(7L, 9L));
+        when(cacheManager.recentKeys("customers")).thenReturn(List.of(3L));
+
+        assertEquals(new CacheWarmupService.Result(FIXED_LOADS + 3, 0, 0), warmupService.warmUp());
+
+        verify(instrumentService).getAllInstruments();
+        for (InstrumentType type : InstrumentType.values()) {
+            verify(instrumentService).getInstrumentsByType(type);
+        }
+        verify(categoryService).getCategoryById(4L);
+        verify(categoryService).getCategoryById(5L);
+        verify(customerService).getAllCustomers();
+        verify(instrumentService).getInstrumentById(7L);
+        verify(instrumentService).getInstrumentById(9L);
+        verify(customerService).getCustomerById(3L);
+    }
+
+    @Test
+    public void testFailedAndSlowLoadsDoNotHoldUpTheRest() throws Exception {
+        when(cacheManager.recentKeys("instruments")).thenReturn(List.of(7L, 9L));
+        when(cacheManager.recentKeys("customers")).thenReturn(List.of());
+        when(instrumentService.getInstrumentById(7L)).thenThrow(new IllegalStateException("Database unavailable"));
+        when(instrumentService.getInstrumentById(9L)).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return Optional.empty();
+        });
+
+        long start = System.nanoTime();
+        CacheWarmupService.Result result = warmupService.warmUp();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(new CacheWarmupService.Result(FIXED_LOADS, 1, 1), result);
+        assertTrue(elapsedMs < 5_000, "warm-up took " + elapsedMs + " ms");
+    }
+}
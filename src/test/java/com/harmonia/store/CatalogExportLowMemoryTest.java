@@ -0,0 +1,154 @@
+package com.harmonia.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.service.CatalogExportService;
+import com.harmonia.store.service.ExportFormat;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams a seeded catalog through the real repository cursor. Runs in its
+ * own surefire execution with a small heap (see pom.xml), and checks the
+ * persistence context is empty afterwards, so rows retained while
+ * streaming fail the test. The database is file-backed so the rows
+ * themselves are not on the heap.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:file:./target/low-memory-export;CACHE_SIZE=8192"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(CatalogExportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogExportLowMemoryTest {
+
+    private static final long ROWS = 100_000;
+    private static final long SEED_CHUNK = 10_000;
+
+    @Autowired
+    private CatalogExportService exportService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    public static void deleteDatabase() throws IOException {
+        // Runs before the context opens it; a file left by an earlier,
+        // interrupted run may be half-written and fail to open
+        for (String suffix : List.of(".mv.db", ".trace.db")) {
+            Files.deleteIfExists(Path.of("target", "low-memory-export" + suffix));
+        }
+    }
+
+    @BeforeEach
+    public void seedInstruments() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM instruments", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name, description, created_at) " +
+                "VALUES (1, 'Guitars', 'String instruments', CURRENT_TIMESTAMP)");
+        // In chunks, one transaction each, so H2's undo log stays small
+        for (long first = 1; first <= ROWS; first += SEED_CHUNK) {
+            jdbcTemplate.update("INSERT INTO instruments (id, name, brand, price, type, condition, description, " +
+                    "stock_quantity, category_id, created_at) " +
+                    "SELECT X, 'Instrument ' || X, 'Brand ' || MOD(X, 50), 100 + MOD(X, 5000), 'GUITAR', 'NEW', " +
+                    "'Seeded instrument number ' || X || ' used to test streaming exports', MOD(X, 20), 1, " +
+                    "CURRENT_TIMESTAMP FROM SYSTEM_RANGE(?, ?)", first, Math.min(first + SEED_CHUNK - 1, ROWS));
+        }
+    }
+
+    @Test
+    public void testExportStreamsAndDetachesEveryRow() {
+        CountingOutputStream out = new CountingOutputStream();
+
+        long[] managedAfterExport = new long[1];
+        long written = new TransactionTemplate(transactionManager).execute(status -> {
+            long count = exportService.exportInstruments(out, ExportFormat.NDJSON);
+            managedAfterExport[0] = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+            return count;
+        });
+
+        assertEquals(ROWS, written);
+        assertEquals(ROWS, out.lines);
+        // Only the shared category can still be in the persistence context
+        assertTrue(managedAfterExport[0] <= 1, "managed entities: " + managedAfterExport[0]);
+    }
+
+    @Test
+    public void testExportAsJsonArray() throws Exception {
+        customerRepository.saveAll(List.of(
+                new Customer("Ada", "Lovelace", "ada@example.com"),
+                new Customer("Grace", "Hopper", "grace@example.com"),
+                new Customer("Alan", "Turing", "alan@example.com")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportCustomers(out, ExportFormat.JSON_ARRAY);
+
+        JsonNode array = objectMapper.readTree(out.toByteArray());
+        assertEquals(3, written);
+        assertEquals(3, array.size());
+        assertEquals(Set.of("Lovelace", "Hopper", "Turing"),
+                Set.of(array.get(0).get("lastName").asText(), array.get(1).get("lastName").asText(),
+                        array.get(2).get("lastName").asText()));
+        customerRepository.deleteAll();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.CatalogStatistics;
+import com.harmonia.store.dto.InstrumentStatisticsRow;
+import com.harmonia.store.event.CustomerChangedEvent;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.CustomerStatus;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.ReviewRepository;
+import com.harmonia.store.service.CatalogStatisticsService;
+import com.harmonia.store.service.InstrumentSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * The service alone in a Spring context, with mocked repositories
+ */
+@SpringBootTest(classes = CatalogStatisticsService.class, properties = "app.statistics.price-buckets=1000,100")
+public class CatalogStatisticsServiceTest {
+
+    @MockBean
+    private InstrumentRepository instrumentRepository;
+
+    @MockBean
+    private CustomerRepository customerRepository;
+
+    @MockBean
+    private ReviewRepository reviewRepository;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private CatalogStatisticsService service;
+
+    @Test
+    public void testReconcileThenApplyEvents() {
+        when(instrumentRepository.aggregateStatistics()).thenReturn(List.of(
+                new InstrumentStatisticsRow(InstrumentType.GUITAR, Condition.NEW, 1L, new BigDecimal("50.00"), 2L, 10L),
+                new InstrumentStatisticsRow(InstrumentType.PIANO, Condition.GOOD, null, new BigDecimal("1000.00"), 1L, 1L)));
+        when(customerRepository.countGroupedByStatus()).thenReturn(List.<Object[]>of(
+                new Object[] {CustomerStatus.ACTIVE, 3L}, new Object[] {CustomerStatus.VIP, 1L}));
+        when(reviewRepository.countGroupedByRating()).thenReturn(List.<Object[]>of(
+                new Object[] {5, 3L}, new Object[] {2, 1L}));
+        service.reconcile();
+
+        CatalogStatistics statistics = service.getStatistics();
+        assertEquals(3, statistics.instrumentCount());
+        assertEquals(2, service.getInstrumentCount(InstrumentType.GUITAR));
+        assertEquals(new BigDecimal("1500.00"), statistics.stockValue());
+        // Bounds are sorted; 1000 starts the last bucket
+        assertEquals(List.of(2L, 0L, 1L), statistics.priceHistogram().stream()
+                .map(CatalogStatistics.PriceBucket::count).toList());
+        assertEquals(4.25, statistics.averageRating());
+        assertEquals(4, statistics.customerCount());
+
+        // A guitar is repriced and restocked, a drum kit added, a customer promoted
+        InstrumentSnapshot before = snapshot(InstrumentType.GUITAR, "50.00", 5);
+        service.onInstrumentChanged(new InstrumentChangedEvent(before, snapshot(InstrumentType.GUITAR, "150.00", 2)));
+        service.onInstrumentChanged(new InstrumentChangedEvent(null, snapshot(InstrumentType.DRUMS, "500.00", 1)));
+        service.onCustomerChanged(new CustomerChangedEvent(1L, CustomerStatus.ACTIVE, CustomerStatus.VIP));
+
+        statistics = service.getStatistics();
+        assertEquals(4, statistics.instrumentCount());
+        assertEquals(1, service.getInstrumentCount(InstrumentType.DRUMS));
+        assertEquals(List.of(1L, 2L, 1L), statistics.priceHistogram().stream()
+                .map(CatalogStatistics.PriceBucket::count).toList());
+        // 1500 - 5 * 50 + 2 * 150 + 500
+        assertEquals(new BigDecimal("2050.00"), statistics.stockValue());
+        assertEquals(2, statistics.customersByStatus().get(CustomerStatus.VIP));
+        assertEquals(3, statistics.instrumentsByCategory().get(1L));
+    }
+
+    @Test
+    public void testChangesDuringReconcileAreKept() {
+        when(customerRepository.countGroupedByStatus()).thenReturn(List.of());
+        when(reviewRepository.countGroupedByRating()).thenReturn(List.of());
+        when(instrumentRepository.aggregateStatistics()).thenReturn(List.of());
+        service.reconcile();
+
+        // A drum kit and a customer are added after their queries read the tables
+        when(instrumentRepository.aggregateStatistics()).thenAnswer(invocation -> {
+            service.onInstrumentChanged(new InstrumentChangedEvent(null, snapshot(InstrumentType.DRUMS, "500.00", 1)));
+            return List.of(new InstrumentStatisticsRow(InstrumentType.GUITAR, Condition.NEW, 1L,
+                    new BigDecimal("50.00"), 1L, 1L));
+        });
+        when(customerRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            service.onCustomerChanged(new CustomerChangedEvent(2L, null, CustomerStatus.ACTIVE));
+            return List.<Object[]>of(new Object[] {CustomerStatus.ACTIVE, 3L});
+        });
+        service.reconcile();
+
+        assertEquals(2, service.getStatistics().instrumentCount());
+        assertEquals(1, service.getInstrumentCount(InstrumentType.DRUMS));
+        assertEquals(4, service.getStatistics().customerCount());
+    }
+
+    private static InstrumentSnapshot snapshot(InstrumentType type, String price, int stock) {
+        return new InstrumentSnapshot(1L, "Name", "Brand", null, type, new BigDecimal(price),
+                Condition.NEW, stock, 1L);
+    }
+}
@@ -0,0 +1,64 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.repository.CategoryRepository;
+import com.harmonia.store.service.CategoryService;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Category writes against a real database, checking which instrument
+ * caches they drop
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(CategoryService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CategoryServiceTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private InstrumentService instrumentService;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @AfterEach
+    public void tearDown() {
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testRenameAndDeleteDropInstrumentCaches() {
+        Category guitars = categoryService.addCategory(new Category("Guitars", "String instruments"));
+        verify(instrumentService, never()).evictAllCachedEntries();
+
+        // Instrument summaries only show the name
+        guitars.setDescription("Electric and acoustic guitars");
+        categoryService.updateCategory(guitars);
+        verify(instrumentService, never()).evictAllCachedEntries();
+
+        guitars.setName("Guitars & Basses");
+        categoryService.updateCategory(guitars);
+        verify(instrumentService, times(1)).evictAllCachedEntries();
+
+        categoryService.deleteCategory(guitars.getId());
+        verify(instrumentService, times(2)).evictAllCachedEntries();
+    }
+}
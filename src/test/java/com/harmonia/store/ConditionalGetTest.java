@@ -0,0 +1,130 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.config.HttpCachingProperties;
+import com.harmonia.store.controller.ConditionalGetInterceptor;
+import com.harmonia.store.service.CatalogVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+public class ConditionalGetTest {
+
+    private final Map<String, Consumer<Object>> invalidations = new HashMap<>();
+    private HttpCachingProperties properties;
+    private ConditionalGetInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        CacheInvalidator cacheInvalidator = Mockito.mock(CacheInvalidator.class);
+        doAnswer(invocation -> invalidations.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(cacheInvalidator).onInvalidation(anyString(), any());
+        CatalogVersions catalogVersions = new CatalogVersions(cacheInvalidator);
+
+        properties = new HttpCachingProperties();
+        properties.getCacheControl().put("/api/v1/instruments/**", "no-cache");
+        properties.getCacheControl().put("/api/v1/instruments/{id}", "max-age=10");
+        interceptor = new ConditionalGetInterceptor(catalogVersions, properties,
+                "instruments", "/api/v1/instruments/{id}", Map.of("includeRatings", "ratings"));
+    }
+
+    @Test
+    public void testUnchangedCollectionIsNotModifiedUntilWritten() {
+        MockHttpServletResponse first = get("/api/v1/instruments/", null, null);
+        assertEquals(200, first.getStatus());
+        assertEquals("no-cache", first.getHeader("Cache-Control"));
+        String etag = first.getHeader("ETag");
+        assertTrue(etag.startsWith("\""), etag);
+
+        MockHttpServletResponse again = get("/api/v1/instruments/", null, etag);
+        assertEquals(304, again.getStatus());
+
+        invalidations.get("instruments").accept("all");
+        assertEquals(200, get("/api/v1/instruments/", null, etag).getStatus());
+    }
+
+    @Test
+    public void testEntryStampOnlyChangesWithItsOwnWrites() {
+        String one = get("/api/v1/instruments/1", Map.of("id", "1"), null).getHeader("ETag");
+        String two = get("/api/v1/instruments/2", Map.of("id", "2"), null).getHeader("ETag");
+
+        invalidations.get("instruments").accept(2L);
+        MockHttpServletResponse unchanged = get("/api/v1/instruments/1", Map.of("id", "1"), one);
+        assertEquals(304, unchanged.getStatus());
+        assertEquals("max-age=10", unchanged.getHeader("Cache-Control"));
+        assertEquals(200, get("/api/v1/instruments/2", Map.of("id", "2"), two).getStatus());
+
+        // Clearing the cache changes every entry
+        invalidations.get("instruments").accept(null);
+        assertEquals(200, get("/api/v1/instruments/1", Map.of("id", "1"), one).getStatus());
+    }
+
+    @Test
+    public void testRatingsParameterAddsRatingsStamp() {
+        MockHttpServletRequest request = request("/api/v1/instruments/", null, null);
+        request.setParameter("includeRatings", "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, new Object());
+        String rated = response.getHeader("ETag");
+
+        invalidations.get("ratings").accept(5L);
+        // Plain listings ignore rating changes, rated ones do not
+        String plain = get("/api/v1/instruments/", null, null).getHeader("ETag");
+        assertEquals(304, get("/api/v1/instruments/", null, plain).getStatus());
+        request = request("/api/v1/instruments/", null, rated);
+        request.setParameter("includeRatings", "true");
+        response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertFalse(List.of(rated, plain).contains(response.getHeader("ETag")));
+    }
+
+    @Test
+    public void testVaryAndCacheControlAreSetEvenWithoutConditionalGet() {
+        MockHttpServletResponse notModified = get("/api/v1/instruments/", null,
+                get("/api/v1/instruments/", null, null).getHeader("ETag"));
+        assertEquals(304, notModified.getStatus());
+        assertEquals(List.of("Accept-Encoding"), notModified.getHeaders("Vary"));
+
+        properties.setConditionalGet(false);
+        MockHttpServletResponse plain = get("/api/v1/instruments/", null, null);
+        assertEquals(List.of("Accept-Encoding"), plain.getHeaders("Vary"));
+        assertEquals("no-cache", plain.getHeader("Cache-Control"));
+        assertNull(plain.getHeader("ETag"));
+    }
+
+    private MockHttpServletResponse get(String path, Map<String, String> variables, String ifNoneMatch) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean handled = interceptor.preHandle(request(path, variables, ifNoneMatch), response, new Object());
+        // The controller only runs for responses that are not 304
+        assertEquals(response.getStatus() != 304, handled);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, Map<String, String> variables, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (variables != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/instruments/{id}");
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+}
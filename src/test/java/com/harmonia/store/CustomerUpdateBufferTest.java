@@ -0,0 +1,143 @@
+package com.harmonia.store;
+
+import com.harmonia.store.service.CustomerDelta;
+import com.harmonia.store.service.CustomerUpdateBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerUpdateBufferTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    public void testConcurrentUpdatesAreCoalescedPerCustomer() throws Exception {
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(false, journalDirectory);
+        buffer.open();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 10_000; i++) {
+            long customerId = i % 2 + 1;
+            executor.execute(() -> {
+                buffer.addPurchase(customerId, new BigDecimal("10.25"));
+                buffer.addLoyaltyPoints(customerId, 1);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Map<Long, CustomerDelta> deltas = byCustomer(buffer.drain());
+        assertEquals(2, deltas.size());
+        assertEquals(new BigDecimal("51250.00"), deltas.get(1L).purchaseAmount());
+        // 10 points per purchase plus 1 loyalty point, 5000 times
+        assertEquals(55_000, deltas.get(1L).loyaltyPoints());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void testJournalIsReplayedUntilBatchCompletes() throws Exception {
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(true, journalDirectory);
+        buffer.open();
+        buffer.addPurchase(7L, new BigDecimal("99.99"));
+        buffer.addLoyaltyPoints(7L, 5);
+        CustomerUpdateBuffer.Batch batch = buffer.drain();
+        buffer.addLoyaltyPoints(8L, 3);
+        buffer.close();
+
+        // Simulated crash before the batch was written: both segments replay
+        CustomerUpdateBuffer restarted = new CustomerUpdateBuffer(true, journalDirectory);
+        restarted.open();
+        CustomerUpdateBuffer.Batch replayedBatch = restarted.drain();
+        Map<Long, CustomerDelta> replayed = byCustomer(replayedBatch);
+        assertEquals(new CustomerDelta(7L, 9999, 104), replayed.get(7L));
+        assertEquals(new CustomerDelta(8L, 0, 3), replayed.get(8L));
+
+        // Once completed the segments are gone
+        buffer.completed(batch);
+        restarted.completed(replayedBatch);
+        restarted.close();
+        CustomerUpdateBuffer again = new CustomerUpdateBuffer(true, journalDirectory);
+        again.open();
+        assertTrue(byCustomer(again.drain()).isEmpty());
+        again.close();
+    }
+
+    @Test
+    public void testConcurrentJournaledUpdatesAreAllReplayed() throws Exception {
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(true, journalDirectory);
+        buffer.open();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 2_000; i++) {
+            long customerId = i % 4 + 1;
+            executor.execute(() -> buffer.addLoyaltyPoints(customerId, 1));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        buffer.close();
+
+        // Appends that shared a force are on disk all the same
+        CustomerUpdateBuffer restarted = new CustomerUpdateBuffer(true, journalDirectory);
+        restarted.open();
+        Map<Long, CustomerDelta> replayed = byCustomer(restarted.drain());
+        assertEquals(4, replayed.size());
+        replayed.values().forEach(delta -> assertEquals(500, delta.loyaltyPoints()));
+        restarted.close();
+    }
+
+    @Test
+    public void testTornJournalEntryIsSkipped() throws Exception {
+        Files.writeString(journalDirectory.resolve("customer-updates-0000000000000000001.journal"), "1 500 5\n2 70");
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(true, journalDirectory);
+        buffer.open();
+        Map<Long, CustomerDelta> replayed = byCustomer(buffer.drain());
+        assertEquals(Map.of(1L, new CustomerDelta(1L, 500, 5)), replayed);
+        buffer.close();
+    }
+
+    @Test
+    public void testRequeuedBatchIsMergedIntoNextFlush() {
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(false, journalDirectory);
+        buffer.open();
+        buffer.addLoyaltyPoints(1L, 10);
+        CustomerUpdateBuffer.Batch failed = buffer.drain();
+        buffer.addLoyaltyPoints(1L, 5);
+        buffer.requeue(failed);
+
+        assertEquals(15, byCustomer(buffer.drain()).get(1L).loyaltyPoints());
+    }
+
+    @Test
+    public void testPartlyWrittenBatchKeepsOnlyUnwrittenDeltasJournaled() throws Exception {
+        CustomerUpdateBuffer buffer = new CustomerUpdateBuffer(true, journalDirectory);
+        buffer.open();
+        buffer.addLoyaltyPoints(1L, 10);
+        buffer.addLoyaltyPoints(2L, 20);
+        CustomerUpdateBuffer.Batch batch = buffer.drain();
+        // Customer 1 was written, customer 2 goes back to the buffer
+        buffer.requeue(batch, List.of(new CustomerDelta(2L, 0, 20)));
+        buffer.close();
+
+        CustomerUpdateBuffer restarted = new CustomerUpdateBuffer(true, journalDirectory);
+        restarted.open();
+        assertEquals(Map.of(2L, new CustomerDelta(2L, 0, 20)), byCustomer(restarted.drain()));
+        restarted.close();
+    }
+
+    private static Map<Long, CustomerDelta> byCustomer(CustomerUpdateBuffer.Batch batch) {
+        return batch.deltas().stream().collect(Collectors.toMap(CustomerDelta::customerId, delta -> delta));
+    }
+}
@@ -0,0 +1,72 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.config.SearchConfig;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.repository.CustomerRepository;
+import com.harmonia.store.service.CustomerService;
+import com.harmonia.store.service.CustomerUpdateBuffer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Write-behind flushes against a real database, without a test transaction
+ * so every flush commits
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({CustomerService.class, CustomerUpdateBuffer.class, SearchConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CustomerWriteBehindTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerUpdateBuffer updateBuffer;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @Test
+    public void testRowThatCannotBeWrittenDoesNotHoldBackTheBatch() {
+        Customer full = new Customer("Ada", "Lovelace", "ada@example.com");
+        // The most total_purchases DECIMAL(10,2) can hold
+        full.setTotalPurchases(new BigDecimal("99999999.99"));
+        Long fullId = customerRepository.save(full).getId();
+        Long buyerId = customerRepository.save(new Customer("Grace", "Hopper", "grace@example.com")).getId();
+        Long loyalId = customerRepository.save(new Customer("Alan", "Turing", "alan@example.com")).getId();
+
+        customerService.addPurchaseToCustomer(fullId, new BigDecimal("1.00"));
+        customerService.addPurchaseToCustomer(buyerId, new BigDecimal("10.50"));
+        customerService.addLoyaltyPoints(loyalId, 7);
+        customerService.flushPendingUpdates();
+
+        assertEquals(new BigDecimal("10.50"), customerRepository.findById(buyerId).orElseThrow().getTotalPurchases());
+        assertEquals(7, customerRepository.findById(loyalId).orElseThrow().getLoyaltyPoints());
+        assertEquals(new BigDecimal("99999999.99"), customerRepository.findById(fullId).orElseThrow().getTotalPurchases());
+        // The overflowing delta is dropped rather than retried forever
+        assertEquals(0, updateBuffer.pendingCustomers());
+
+        ArgumentCaptor<Collection<?>> keys = ArgumentCaptor.captor();
+        verify(cacheInvalidator).evict(eq("customers"), keys.capture());
+        assertEquals(Set.of("all", buyerId, "email_grace@example.com", loyalId, "email_alan@example.com"),
+                Set.copyOf(keys.getValue()));
+    }
+}
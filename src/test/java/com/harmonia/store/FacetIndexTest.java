@@ -0,0 +1,64 @@
+package com.harmonia.store;
+
+import com.harmonia.store.search.FacetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new FacetIndex(List.of("type", "brand"), Map.of("price", new long[]{500, 1000}));
+        index.index(1L, Map.of("type", "GUITAR", "brand", "Fender"), Map.of("price", 1299L));
+        index.index(2L, Map.of("type", "GUITAR", "brand", "Gibson"), Map.of("price", 2499L));
+        index.index(3L, Map.of("type", "BASS", "brand", "Fender"), Map.of("price", 899L));
+        index.index(4L, Map.of("type", "PIANO", "brand", "Roland"), Map.of("price", 500L));
+    }
+
+    @Test
+    public void testCountsEachDimensionWithoutItsOwnFilter() {
+        FacetIndex.Result result = index.query(new FacetIndex.Query(
+                Map.of("type", Set.of("GUITAR"), "brand", Set.of("Fender")), Map.of(), null));
+
+        assertEquals(1, result.total());
+        // Types among Fender instruments, brands among guitars
+        assertEquals(Map.of("GUITAR", 1L, "BASS", 1L), result.termCounts().get("type"));
+        assertEquals(Map.of("Fender", 1L, "Gibson", 1L), result.termCounts().get("brand"));
+        // Prices of Fender guitars; 500 is the start of the second bucket
+        assertArrayEquals(new long[]{0, 0, 1}, result.rangeCounts().get("price"));
+    }
+
+    @Test
+    public void testRangeAndIdRestrictions() {
+        FacetIndex.Result result = index.query(new FacetIndex.Query(
+                Map.of(), Map.of("price", new FacetIndex.Range(500L, 1299L)), List.of(1L, 2L, 4L)));
+
+        assertEquals(2, result.total());
+        assertEquals(Map.of("GUITAR", 1L, "PIANO", 1L), result.termCounts().get("type"));
+        // The price facet ignores the price filter but keeps the ID restriction
+        assertArrayEquals(new long[]{0, 1, 2}, result.rangeCounts().get("price"));
+    }
+
+    @Test
+    public void testReindexAndRemoveUpdateCounts() {
+        index.index(1L, Map.of("type", "BASS", "brand", "Fender"), Map.of("price", 1299L));
+        index.remove(2L);
+        index.index(5L, Map.of("type", "DRUMS", "brand", "Pearl"), Map.of("price", 700L));
+
+        FacetIndex.Result result = index.query(new FacetIndex.Query(Map.of(), Map.of(), null));
+        assertEquals(4, result.total());
+        assertEquals(Map.of("BASS", 2L, "PIANO", 1L, "DRUMS", 1L), result.termCounts().get("type"));
+        assertFalse(index.values("brand").contains("Gibson"));
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.harmonia.store;
+
+import com.harmonia.store.config.HibernateCacheConfig;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.CategoryRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Category lookups through the second-level and query cache, counting the
+ * statements that still reach the database
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HibernateSecondLevelCacheTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void testNavigatingToTheCategoryDoesNotQueryIt() {
+        Category category = categoryRepository.save(new Category("Keyboards", "Pianos and synthesizers"));
+        Instrument instrument = new Instrument("FP-30X", "Roland", new BigDecimal("699.00"),
+                InstrumentType.PIANO, Condition.NEW);
+        instrument.setStockQuantity(3);
+        instrument.setCategory(category);
+        Long instrumentId = instrumentRepository.save(instrument).getId();
+        // IDENTITY inserts are not cached, the first load is
+        categoryRepository.findById(category.getId());
+
+        statistics.clear();
+        String name = new TransactionTemplate(transactionManager).execute(status ->
+                instrumentRepository.findById(instrumentId).orElseThrow().getCategory().getName());
+
+        assertEquals("Keyboards", name);
+        // Only the instrument itself
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics(Category.CACHE_REGION).getHitCount() > 0);
+    }
+
+    @Test
+    public void testNameLookupsUseTheQueryCacheUntilCategoriesChange() {
+        Category category = categoryRepository.save(new Category("Percussion", "Drums and cymbals"));
+        categoryRepository.findByNameIgnoreCase("percussion");
+
+        statistics.clear();
+        assertEquals(category.getId(), categoryRepository.findByNameIgnoreCase("percussion").orElseThrow().getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        category.setName("Drums");
+        categoryRepository.save(category);
+        assertFalse(categoryRepository.findByNameIgnoreCase("percussion").isPresent());
+        assertEquals(category.getId(), categoryRepository.findByNameIgnoreCase("drums").orElseThrow().getId());
+    }
+}
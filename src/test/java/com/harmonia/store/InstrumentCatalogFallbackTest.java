@@ -0,0 +1,65 @@
+package com.harmonia.store;
+
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.InstrumentCatalogSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The catalog snapshot and the repository queries used while it is stale
+ * must return the same rows in the same order
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+public class InstrumentCatalogFallbackTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    private InstrumentCatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        Category guitars = entityManager.persist(new Category("Guitars", "String instruments"));
+        // Inserted out of price order, with equal prices to check the tie-break
+        String[] prices = {"1299.99", "499.00", "899.50", "499.00", "2499.99", "899.50", "149.00"};
+        for (int i = 0; i < prices.length; i++) {
+            Instrument instrument = new Instrument("Instrument " + i, "Brand", new BigDecimal(prices[i]),
+                    InstrumentType.GUITAR, Condition.NEW);
+            instrument.setStockQuantity(i % 3);
+            instrument.setCategory(guitars);
+            entityManager.persist(instrument);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        snapshot = InstrumentCatalogSnapshot.of(instrumentRepository.findAllSummaries(), 0);
+    }
+
+    @Test
+    public void testPriceRangeMatchesFallback() {
+        BigDecimal min = new BigDecimal("499");
+        BigDecimal max = new BigDecimal("1299.99");
+        assertEquals(instrumentRepository.findSummariesByPriceBetween(min, max), snapshot.findByPriceBetween(min, max));
+        assertEquals(instrumentRepository.findSummariesByPriceBetween(BigDecimal.ZERO, new BigDecimal("9999")),
+                snapshot.findByPriceBetween(BigDecimal.ZERO, new BigDecimal("9999")));
+    }
+
+    @Test
+    public void testStockScansMatchFallback() {
+        assertEquals(instrumentRepository.findSummariesByStockQuantityGreaterThan(0), snapshot.findByStock(true));
+        assertEquals(instrumentRepository.findSummariesByStockQuantityLessThanEqual(0), snapshot.findByStock(false));
+    }
+}
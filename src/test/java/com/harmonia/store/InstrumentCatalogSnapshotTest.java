@@ -0,0 +1,57 @@
+package com.harmonia.store;
+
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.service.InstrumentCatalogSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentCatalogSnapshotTest {
+
+    private InstrumentCatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        snapshot = InstrumentCatalogSnapshot.of(List.of(
+                instrument(1L, "1299.99", InstrumentType.GUITAR, 15),
+                instrument(2L, "499.00", InstrumentType.PIANO, 0),
+                instrument(3L, "899.50", InstrumentType.BASS, 4),
+                instrument(4L, "499.00", InstrumentType.GUITAR, 2),
+                instrument(5L, "2499.99", InstrumentType.DRUMS, 0)), 7);
+    }
+
+    @Test
+    public void testPriceRangeIsInclusiveAndSortedByPrice() {
+        assertEquals(List.of(2L, 4L, 3L, 1L), ids(snapshot.findByPriceBetween(new BigDecimal("499"), new BigDecimal("1299.99"))));
+        // Bounds with more decimals than prices are rounded inwards
+        assertEquals(List.of(3L), ids(snapshot.findByPriceBetween(new BigDecimal("499.001"), new BigDecimal("1299.989"))));
+        assertEquals(List.of(5L), ids(snapshot.findByPriceBetween(new BigDecimal("2000"), new BigDecimal("9999"))));
+        assertTrue(snapshot.findByPriceBetween(new BigDecimal("10"), new BigDecimal("20")).isEmpty());
+        assertTrue(snapshot.findByPriceBetween(new BigDecimal("900"), new BigDecimal("800")).isEmpty());
+    }
+
+    @Test
+    public void testStockAndTypeScans() {
+        assertEquals(List.of(4L, 3L, 1L), ids(snapshot.findByStock(true)));
+        assertEquals(List.of(2L, 5L), ids(snapshot.findByStock(false)));
+        assertEquals(2, snapshot.countByType(InstrumentType.GUITAR));
+        assertEquals(0, snapshot.countByType(InstrumentType.VIOLIN));
+        assertEquals(7, snapshot.generation());
+    }
+
+    private static InstrumentSummary instrument(Long id, String price, InstrumentType type, int stock) {
+        return new InstrumentSummary(id, "Instrument " + id, "Brand", new BigDecimal(price), type, Condition.NEW,
+                null, stock, null, null, null, null);
+    }
+
+    private static List<Long> ids(List<InstrumentSummary> instruments) {
+        return instruments.stream().map(InstrumentSummary::id).toList();
+    }
+}
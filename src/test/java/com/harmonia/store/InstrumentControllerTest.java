@@ -0,0 +1,184 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.controller.InstrumentController;
+import com.harmonia.store.dto.FacetedSearchResult;
+import com.harmonia.store.dto.InstrumentFacets;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.InstrumentSearchCriteria;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentRatingSummary;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.InstrumentRatingSummaryRepository;
+import com.harmonia.store.service.CatalogExportService;
+import com.harmonia.store.service.CatalogVersions;
+import com.harmonia.store.service.InstrumentImportService;
+import com.harmonia.store.service.InstrumentRatings;
+import com.harmonia.store.service.InstrumentSearchService;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Request binding and error mapping of the instrument endpoints, with the
+ * services mocked
+ */
+@WebMvcTest(InstrumentController.class)
+@Import({CatalogVersions.class, InstrumentRatings.class})
+public class InstrumentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private InstrumentService instrumentService;
+
+    @MockBean
+    private CatalogExportService catalogExportService;
+
+    @MockBean
+    private InstrumentImportService instrumentImportService;
+
+    @MockBean
+    private InstrumentSearchService instrumentSearchService;
+
+    @MockBean
+    private InstrumentRatingSummaryRepository ratingSummaryRepository;
+
+    @Autowired
+    private InstrumentRatings instrumentRatings;
+
+    // Not reset, CatalogVersions registers its invalidation callbacks once
+    @MockBean(reset = MockReset.NONE)
+    private CacheInvalidator cacheInvalidator;
+
+    @BeforeEach
+    public void setUp() {
+        // A new instruments version per test, so no list body cached by an earlier test is served
+        ArgumentCaptor<Consumer<Object>> instruments = ArgumentCaptor.captor();
+        verify(cacheInvalidator).onInvalidation(eq("instruments"), instruments.capture());
+        instruments.getValue().accept(null);
+    }
+
+    @Test
+    public void testFacetedSearchBindsFiltersAndSort() throws Exception {
+        when(instrumentSearchService.search(any(), any())).thenReturn(new FacetedSearchResult(Page.empty(),
+                new InstrumentFacets(Map.of(), Map.of(), Map.of("Fender", 2L), Map.of(), List.of(), 2, 0)));
+
+        mockMvc.perform(get("/api/v1/instruments/faceted-search")
+                        .param("q", "strat")
+                        .param("type", "GUITAR", "BASS")
+                        .param("condition", "NEW")
+                        .param("brand", "fender")
+                        .param("maxPrice", "1500")
+                        .param("inStock", "true")
+                        .param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets.brands.Fender").value(2));
+
+        ArgumentCaptor<InstrumentSearchCriteria> criteria = ArgumentCaptor.captor();
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.captor();
+        verify(instrumentSearchService).search(criteria.capture(), pageable.capture());
+        assertEquals(new InstrumentSearchCriteria("strat", Set.of(InstrumentType.GUITAR, InstrumentType.BASS),
+                Set.of(Condition.NEW), Set.of("fender"), null, null, new BigDecimal("1500"), true), criteria.getValue());
+        assertEquals(Sort.by(Sort.Direction.DESC, "price"), pageable.getValue().getSort());
+    }
+
+    @Test
+    public void testInvalidSearchIsBadRequest() throws Exception {
+        when(instrumentSearchService.search(any(), any())).thenThrow(new IllegalArgumentException("Unsupported sort field"));
+        mockMvc.perform(get("/api/v1/instruments/faceted-search").param("sort", "category"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/instruments/paginated").param("sort", "name,sideways"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(instrumentService);
+    }
+
+    @Test
+    public void testRatingsAreIncludedOnRequest() throws Exception {
+        InstrumentRatingSummary rating = new InstrumentRatingSummary(1L);
+        rating.setReviewCount(2);
+        rating.setRatingTotal(9);
+        when(ratingSummaryRepository.findAll()).thenReturn(List.of(rating));
+        instrumentRatings.refresh();
+        List<InstrumentSummary> instruments = List.of(instrument(1L, "Stratocaster"), instrument(2L, "Telecaster"));
+        when(instrumentService.getAllInstruments()).thenReturn(instruments);
+        when(instrumentService.getInstrumentsByCursor(eq("name"), eq(Sort.Direction.ASC), eq(10), any()))
+                .thenReturn(new CursorPage<>(instruments, 2, false, null));
+
+        for (String path : List.of("/api/v1/instruments/", "/api/v1/instruments/cursor")) {
+            String list = path.endsWith("cursor") ? "$.content" : "$";
+            mockMvc.perform(get(path).param("includeRatings", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(list + "[0].name").value("Stratocaster"))
+                    .andExpect(jsonPath(list + "[0].reviewCount").value(2))
+                    .andExpect(jsonPath(list + "[0].averageRating").value(4.5))
+                    .andExpect(jsonPath(list + "[1].reviewCount").value(0))
+                    .andExpect(jsonPath(list + "[1].averageRating").doesNotExist());
+            // Without ratings the body is the plain summary
+            mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(list + "[0].name").value("Stratocaster"))
+                    .andExpect(jsonPath(list + "[0].reviewCount").doesNotExist());
+        }
+    }
+
+    @Test
+    public void testNotModifiedIsAnsweredWithoutTheController() throws Exception {
+        when(instrumentService.getInstrumentById(1L)).thenReturn(Optional.of(instrument(1L, "Stratocaster")));
+        when(instrumentService.getAllInstruments()).thenReturn(List.of(instrument(1L, "Stratocaster")));
+
+        for (String path : List.of("/api/v1/instruments/1", "/api/v1/instruments/")) {
+            String etag = mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andExpect(result -> assertEquals(1, result.getResponse().getHeaders("Vary").stream()
+                            .filter("Accept-Encoding"::equals).count()))
+                    .andExpect(jsonPath("$..name").value("Stratocaster"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get(path).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")));
+        }
+        // Each loaded once, for the first request
+        verify(instrumentService, times(1)).getInstrumentById(1L);
+        verify(instrumentService, times(1)).getAllInstruments();
+    }
+
+    private static InstrumentSummary instrument(Long id, String name) {
+        return new InstrumentSummary(id, name, "Fender", new BigDecimal("1299.99"), InstrumentType.GUITAR,
+                Condition.NEW, null, 3, null, null, null, null);
+    }
+}
@@ -0,0 +1,124 @@
+package com.harmonia.store;
+
+import com.harmonia.store.dto.ImportResult;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.repository.CategoryRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.ImportFormat;
+import com.harmonia.store.service.InstrumentImportService;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports against a real database, without a test transaction so every
+ * batch commits or rolls back for real
+ */
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "app.import.batch-size=2"})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import(InstrumentImportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InstrumentImportServiceTest {
+
+    @Autowired
+    private InstrumentImportService importService;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private InstrumentService instrumentService;
+
+    @AfterEach
+    public void tearDown() {
+        instrumentRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCsvImportInsertsInBatchesAndReportsBadRows() {
+        Long guitars = categoryRepository.save(new Category("Guitars", "String instruments")).getId();
+        String csv = """
+                name,brand,price,type,condition,stockQuantity,description,categoryId
+                Fender Jazzmaster,Fender,1499.00,GUITAR,NEW,4,Offset body,%d
+                "Martin D-28, Reimagined",Martin,3199.00,guitar,new,2,"Dreadnought, ""vintage"" voicing",
+                Broken Price,Yamaha,abc,PIANO,NEW,1,,
+                Ghost Category,Ibanez,899.00,GUITAR,NEW,1,,%d
+                Yamaha P-125,Yamaha,649.00,PIANO,NEW,,Digital piano,
+                """.formatted(guitars, guitars + 1000);
+
+        ImportResult result = importService.importInstruments(body(csv), ImportFormat.CSV);
+
+        assertEquals(5, result.received());
+        assertEquals(3, result.imported());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(4L, 5L), result.errors().stream().map(ImportResult.RowError::line).toList());
+        assertTrue(result.errors().get(1).message().contains("Unknown category"));
+
+        Map<String, Instrument> imported = instrumentRepository.findAll().stream()
+                .collect(Collectors.toMap(Instrument::getName, Function.identity()));
+        assertEquals(3, imported.size());
+        assertEquals("Dreadnought, \"vintage\" voicing", imported.get("Martin D-28, Reimagined").getDescription());
+        assertEquals(0, imported.get("Yamaha P-125").getStockQuantity());
+        assertEquals(guitars, imported.get("Fender Jazzmaster").getCategory().getId());
+
+        // Two batches of at most two rows, caches invalidated once
+        ArgumentCaptor<Collection<Instrument>> batches = ArgumentCaptor.captor();
+        verify(instrumentService, times(2)).instrumentsImported(batches.capture());
+        assertEquals(List.of(2, 1), batches.getAllValues().stream().map(Collection::size).toList());
+        verify(instrumentService, times(1)).evictAllCachedEntries();
+    }
+
+    @Test
+    public void testFailedBatchReportsEveryRow() {
+        // The description column holds 500 characters, which validation does not check
+        String ndjson = """
+                {"name":"Roland FP-30X","brand":"Roland","price":699.99,"type":"PIANO","condition":"NEW"}
+                {"name":"Kawai ES110","brand":"Kawai","price":799.99,"type":"PIANO","condition":"EXCELLENT","description":"%s"}
+                {"name":"Bad","brand":"Kawai","price":1,"type":"SPACESHIP","condition":"NEW"}
+                """.formatted("x".repeat(600));
+
+        ImportResult result = importService.importInstruments(body(ndjson), ImportFormat.NDJSON);
+
+        assertEquals(3, result.received());
+        assertEquals(0, result.imported());
+        assertEquals(3, result.failed());
+        assertTrue(result.errors().get(0).message().startsWith("Batch insert failed"), result.errors().get(0).message());
+        assertTrue(result.errors().get(2).message().startsWith("Malformed JSON"), result.errors().get(2).message());
+        assertEquals(0, instrumentRepository.count());
+        verify(instrumentService, times(0)).instrumentsImported(any());
+        verify(instrumentService, times(0)).evictAllCachedEntries();
+    }
+}
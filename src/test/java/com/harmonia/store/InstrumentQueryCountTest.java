@@ -0,0 +1,126 @@
+package com.harmonia.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.model.Review;
+import com.harmonia.store.repository.InstrumentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pins the number of SQL statements each instrument read issues, so a
+ * lazy association touched during mapping or serialization shows up as a
+ * failing count instead of an N+1 in production.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class InstrumentQueryCountTest {
+
+    private static final int INSTRUMENTS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        Category[] categories = new Category[4];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = entityManager.persist(new Category("Query category " + i, null));
+        }
+        for (int i = 0; i < INSTRUMENTS; i++) {
+            Instrument instrument = new Instrument("Instrument " + i, "Brand", BigDecimal.valueOf(100 + i),
+                    i % 2 == 0 ? InstrumentType.GUITAR : InstrumentType.DRUMS, Condition.NEW);
+            instrument.setStockQuantity(i % 3);
+            instrument.setCategory(categories[i % categories.length]);
+            entityManager.persist(instrument);
+            entityManager.persist(new Review("Great sound and feel", 5, "Reviewer", instrument));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testListProjectionsUseOneStatement() throws Exception {
+        List<InstrumentSummary> all = instrumentRepository.findAllSummaries();
+        objectMapper.writeValueAsString(all);
+        assertEquals(INSTRUMENTS, all.size());
+        assertTrue(all.stream().allMatch(summary -> summary.categoryName() != null));
+        assertStatements(1);
+
+        instrumentRepository.findSummariesByType(InstrumentType.DRUMS);
+        assertStatements(1);
+
+        instrumentRepository.findSummariesByPriceBetween(BigDecimal.valueOf(100), BigDecimal.valueOf(110));
+        assertStatements(1);
+
+        instrumentRepository.findSummariesByStockQuantityGreaterThan(0);
+        assertStatements(1);
+
+        assertTrue(instrumentRepository.findSummaryById(all.get(0).id()).isPresent());
+        assertStatements(1);
+    }
+
+    @Test
+    public void testPagedProjectionUsesSelectAndCount() {
+        Page<InstrumentSummary> page = instrumentRepository.findSummaries(
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "price")));
+        assertEquals(5, page.getContent().size());
+        assertEquals(INSTRUMENTS, page.getTotalElements());
+        assertEquals(BigDecimal.valueOf(119).setScale(2), page.getContent().get(0).price());
+        assertStatements(2);
+    }
+
+    @Test
+    public void testKeysetWindowFetchesCategoryInSameStatement() throws Exception {
+        Window<Instrument> window = instrumentRepository.findBy(InstrumentRepository.withCategory(),
+                query -> query.sortBy(Sort.by("id")).limit(10).scroll(ScrollPosition.keyset()));
+        List<InstrumentSummary> summaries = window.map(InstrumentSummary::from).getContent();
+        objectMapper.writeValueAsString(summaries);
+        assertEquals(10, summaries.size());
+        assertFalse(summaries.stream().anyMatch(summary -> summary.categoryName() == null));
+        assertStatements(1);
+    }
+
+    private void assertStatements(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements issued");
+        statistics.clear();
+    }
+}
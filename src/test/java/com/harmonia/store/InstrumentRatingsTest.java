@@ -0,0 +1,120 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.dto.RatedInstrumentSummary;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.event.ReviewChangedEvent;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.InstrumentRatingSummary;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.InstrumentRatingSummaryRepository;
+import com.harmonia.store.service.InstrumentRatings;
+import com.harmonia.store.service.InstrumentSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-heap rating map alone in a Spring context, with the summary
+ * repository mocked
+ */
+@SpringBootTest(classes = InstrumentRatings.class)
+public class InstrumentRatingsTest {
+
+    private static final InstrumentSummary STRATOCASTER = instrument(1L, "Stratocaster");
+    private static final InstrumentSummary TELECASTER = instrument(2L, "Telecaster");
+
+    @Autowired
+    private InstrumentRatings instrumentRatings;
+
+    @MockBean
+    private InstrumentRatingSummaryRepository ratingSummaryRepository;
+
+    // Not reset, the remote invalidation callback is registered once at startup
+    @MockBean(reset = MockReset.NONE)
+    private CacheInvalidator cacheInvalidator;
+
+    @BeforeEach
+    public void setUp() {
+        when(ratingSummaryRepository.findAll()).thenReturn(List.of(summary(1L, 4, 5)));
+        instrumentRatings.refresh();
+    }
+
+    @Test
+    public void testRatingsAreAddedOnlyWhenRequested() {
+        List<RatedInstrumentSummary> rated = instrumentRatings.rate(List.of(STRATOCASTER, TELECASTER), true);
+        assertEquals(new RatedInstrumentSummary(STRATOCASTER, 2L, 4.5), rated.get(0));
+        // No reviews yet
+        assertEquals(new RatedInstrumentSummary(TELECASTER, 0L, null), rated.get(1));
+
+        assertEquals(List.of(RatedInstrumentSummary.unrated(STRATOCASTER), RatedInstrumentSummary.unrated(TELECASTER)),
+                instrumentRatings.rate(List.of(STRATOCASTER, TELECASTER), false));
+    }
+
+    @Test
+    public void testChangesReloadOneInstrument() {
+        when(ratingSummaryRepository.findById(1L)).thenReturn(Optional.of(summary(1L, 4, 5, 3)));
+        when(ratingSummaryRepository.findById(2L)).thenReturn(Optional.of(summary(2L, 1)));
+
+        instrumentRatings.onReviewChanged(new ReviewChangedEvent(1L, null, 3));
+        instrumentRatings.onReviewChanged(new ReviewChangedEvent(2L, null, 1));
+
+        assertEquals(3, instrumentRatings.get(1L).reviewCount());
+        assertEquals(1.0, instrumentRatings.get(2L).averageRating());
+
+        instrumentRatings.onInstrumentChanged(new InstrumentChangedEvent(snapshot(2L), null));
+        assertNull(instrumentRatings.get(2L));
+        assertEquals(3, instrumentRatings.get(1L).reviewCount());
+    }
+
+    @Test
+    public void testRemoteInvalidationsReload() {
+        ArgumentCaptor<Consumer<Object>> callback = ArgumentCaptor.captor();
+        verify(cacheInvalidator).onRemoteInvalidation(eq("ratings"), callback.capture());
+
+        // Another node's review, then another node's rebuild
+        when(ratingSummaryRepository.findById(2L)).thenReturn(Optional.of(summary(2L, 5)));
+        callback.getValue().accept(2L);
+        assertEquals(5.0, instrumentRatings.get(2L).averageRating());
+
+        when(ratingSummaryRepository.findAll()).thenReturn(List.of(summary(2L, 5, 5, 2)));
+        callback.getValue().accept(null);
+        assertNull(instrumentRatings.get(1L));
+        assertEquals(4.0, instrumentRatings.get(2L).averageRating());
+    }
+
+    private static InstrumentRatingSummary summary(Long instrumentId, int... ratings) {
+        InstrumentRatingSummary summary = new InstrumentRatingSummary(instrumentId);
+        for (int rating : ratings) {
+            summary.setReviewCount(summary.getReviewCount() + 1);
+            summary.setRatingTotal(summary.getRatingTotal() + rating);
+        }
+        return summary;
+    }
+
+    private static InstrumentSummary instrument(Long id, String name) {
+        return new InstrumentSummary(id, name, "Fender", new BigDecimal("1299.99"), InstrumentType.GUITAR,
+                Condition.NEW, null, 3, null, null, null, null);
+    }
+
+    private static InstrumentSnapshot snapshot(Long id) {
+        return new InstrumentSnapshot(id, "Telecaster", "Fender", null, InstrumentType.GUITAR,
+                new BigDecimal("999.00"), Condition.NEW, 0, null);
+    }
+}
@@ -0,0 +1,179 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.config.SearchConfig;
+import com.harmonia.store.dto.FacetedSearchResult;
+import com.harmonia.store.dto.InstrumentSearchCriteria;
+import com.harmonia.store.dto.InstrumentSummary;
+import com.harmonia.store.model.Category;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.CategoryRepository;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.repository.InstrumentSpecifications;
+import com.harmonia.store.search.TrigramIndex;
+import com.harmonia.store.service.InstrumentSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Faceted search against a real database, with the facet and text indexes
+ * built from the seeded rows
+ */
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "app.search.max-text-matches=2"})
+@Import({InstrumentSearchService.class, SearchConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InstrumentSearchServiceTest {
+
+    private static final Pageable BY_NAME = PageRequest.of(0, 10, Sort.by("name"));
+
+    @Autowired
+    private InstrumentSearchService searchService;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    @Qualifier("instrumentSearchIndex")
+    private TrigramIndex searchIndex;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    private Category keyboards;
+
+    @BeforeEach
+    public void setUp() {
+        Category guitars = categoryRepository.save(new Category("Guitars", "String instruments"));
+        keyboards = categoryRepository.save(new Category("Keyboards", "Pianos and synths"));
+        save("Stratocaster", "Fender", "1299.99", InstrumentType.GUITAR, Condition.NEW, 3, guitars);
+        save("Telecaster", "fender", "999.00", InstrumentType.GUITAR, Condition.GOOD, 0, guitars);
+        save("Precision Bass", "Fender", "1499.00", InstrumentType.BASS, Condition.NEW, 2, guitars);
+        save("Les Paul Standard", "Gibson", "2499.00", InstrumentType.GUITAR, Condition.EXCELLENT, 1, guitars);
+        save("P-125", "Yamaha", "649.00", InstrumentType.PIANO, Condition.NEW, 5, keyboards);
+        searchService.rebuildFacetIndex();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        instrumentRepository.findAll().forEach(instrument -> searchIndex.remove(instrument.getId()));
+        instrumentRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testSpecificationsCombineEveryFilter() {
+        assertEquals(List.of("P-125"), names(instrumentRepository.findAll(InstrumentSpecifications.matching(
+                criteria(null, null, null, Set.of(keyboards.getId()), new BigDecimal("600"), null, true), null))));
+        assertEquals(List.of("Telecaster"), names(instrumentRepository.findAll(InstrumentSpecifications.matching(
+                criteria(null, Set.of(InstrumentType.GUITAR), null, null, null, new BigDecimal("1000"), false), null))));
+        assertEquals(List.of("Les Paul Standard", "Precision Bass"),
+                names(instrumentRepository.findAll(InstrumentSpecifications.matching(new InstrumentSearchCriteria(
+                        null, null, Set.of(Condition.NEW, Condition.EXCELLENT), null, null,
+                        new BigDecimal("1499.00"), null, null), null), Sort.by("name"))));
+    }
+
+    @Test
+    public void testBrandsMatchCaseInsensitively() {
+        FacetedSearchResult result = searchService.search(
+                criteria(null, null, Set.of("FENDER"), null, null, null, null), BY_NAME);
+
+        assertEquals(List.of("Precision Bass", "Stratocaster", "Telecaster"), summaryNames(result));
+        // "Fender" and "fender" are one facet value, counted without the brand filter
+        assertEquals(3L, result.facets().brands().get("FENDER"));
+        assertEquals(1L, result.facets().brands().get("gibson"));
+        assertEquals(3, result.facets().brands().size());
+        assertEquals(2L, result.facets().types().get(InstrumentType.GUITAR));
+    }
+
+    @Test
+    public void testTextAndFiltersCombine() {
+        FacetedSearchResult result = searchService.search(
+                criteria("caster", Set.of(InstrumentType.GUITAR), null, null, null, new BigDecimal("1000"), null),
+                BY_NAME);
+
+        assertEquals(List.of("Telecaster"), summaryNames(result));
+        assertEquals(1L, result.facets().types().get(InstrumentType.GUITAR));
+        assertEquals(0, result.facets().inStock());
+        assertEquals(1, result.facets().outOfStock());
+    }
+
+    @Test
+    public void testTextMatchesAreCapped() {
+        // Three Fender instruments match, only the best two are searched
+        FacetedSearchResult result = searchService.search(
+                criteria("fender", null, null, null, null, null, null), BY_NAME);
+
+        assertEquals(2, result.results().getTotalElements());
+        assertEquals(2, result.facets().inStock() + result.facets().outOfStock());
+    }
+
+    @Test
+    public void testRebuildReplacesTheIndex() {
+        instrumentRepository.delete(instrumentRepository.findAll().stream()
+                .filter(instrument -> instrument.getName().equals("P-125")).findFirst().orElseThrow());
+        assertEquals(1L, searchService.search(criteria(null, null, null, null, null, null, null), BY_NAME)
+                .facets().types().get(InstrumentType.PIANO));
+
+        searchService.rebuildFacetIndex();
+
+        FacetedSearchResult result = searchService.search(criteria(null, null, null, null, null, null, null), BY_NAME);
+        assertEquals(4, result.results().getTotalElements());
+        assertEquals(null, result.facets().types().get(InstrumentType.PIANO));
+        assertEquals(4, result.facets().inStock() + result.facets().outOfStock());
+    }
+
+    @Test
+    public void testUnknownSortFieldIsRejected() {
+        InstrumentSearchCriteria all = criteria(null, null, null, null, null, null, null);
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.search(all, PageRequest.of(0, 10, Sort.by("category"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.search(all, PageRequest.of(0, 10, Sort.by("name").and(Sort.by("nope")))));
+    }
+
+    private void save(String name, String brand, String price, InstrumentType type, Condition condition,
+                      int stock, Category category) {
+        Instrument instrument = new Instrument(name, brand, new BigDecimal(price), type, condition);
+        instrument.setStockQuantity(stock);
+        instrument.setCategory(category);
+        Instrument saved = instrumentRepository.save(instrument);
+        searchIndex.index(saved.getId(), saved.getName(), saved.getBrand(), saved.getDescription());
+    }
+
+    private static InstrumentSearchCriteria criteria(String text, Set<InstrumentType> types, Set<String> brands,
+                                                     Set<Long> categoryIds, BigDecimal minPrice,
+                                                     BigDecimal maxPrice, Boolean inStock) {
+        return new InstrumentSearchCriteria(text, types, null, brands, categoryIds, minPrice, maxPrice, inStock);
+    }
+
+    private static List<String> names(List<Instrument> instruments) {
+        return instruments.stream().map(Instrument::getName).sorted().toList();
+    }
+
+    private static List<String> summaryNames(FacetedSearchResult result) {
+        return result.results().getContent().stream().map(InstrumentSummary::name).toList();
+    }
+}
@@ -1,21 +1,34 @@
 package com.harmonia.store;
 
-import com.harmonia.store.model.Instrument;
+import com.harmonia.store.dto.InstrumentSummary;
 import com.harmonia.store.repository.InstrumentRepository;
 import com.harmonia.store.service.InstrumentService;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 
+@ExtendWith(MockitoExtension.class)
 public class InstrumentServiceTest {
 
+    @Mock
+    private InstrumentRepository instrumentRepository;
+
+    @InjectMocks
+    private InstrumentService service;
+
     @Test
     public void testGetAllInstruments() {
-        InstrumentRepository mockRepo = Mockito.mock(InstrumentRepository.class);
-        when(mockRepo.findAll()).thenReturn(Collections.singletonList(new Instrument()));
-        InstrumentService service = new InstrumentService();
-        service.getAllInstruments();
+        List<InstrumentSummary> summaries = Collections.singletonList(
+                new InstrumentSummary(1L, "Guitar", "Fender", null, null, null, null, 1, null, null, null, null));
+        when(instrumentRepository.findAllSummaries()).thenReturn(summaries);
+        assertEquals(summaries, service.getAllInstruments());
     }
 }
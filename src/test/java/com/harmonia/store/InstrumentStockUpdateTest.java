@@ -0,0 +1,82 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.cache.SearchResultCache;
+import com.harmonia.store.config.SearchConfig;
+import com.harmonia.store.event.InstrumentChangedEvent;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.CatalogStatisticsService;
+import com.harmonia.store.service.InstrumentCatalog;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stock changes published after the atomic updates, when the instrument was
+ * already loaded in the same transaction
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({InstrumentService.class, SearchConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+public class InstrumentStockUpdateTest {
+
+    @Autowired
+    private InstrumentService instrumentService;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @MockBean
+    private CatalogStatisticsService statisticsService;
+
+    @MockBean
+    private InstrumentCatalog instrumentCatalog;
+
+    @MockBean
+    private SearchResultCache<?> searchCache;
+
+    @Test
+    public void testChangesSeeTheNewStockOfALoadedInstrument() {
+        Long id = instrumentRepository.save(new Instrument("Telecaster", "Fender", new BigDecimal("999.00"),
+                InstrumentType.GUITAR, Condition.NEW)).getId();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Instrument loaded = instrumentRepository.findById(id).orElseThrow();
+            instrumentService.addStock(id, 5);
+            instrumentService.updateStock(id, 3);
+            assertEquals(3, loaded.getStockQuantity());
+        });
+
+        List<InstrumentChangedEvent> changes = events.stream(InstrumentChangedEvent.class).toList();
+        assertEquals(List.of(0, 5), changes.stream().map(change -> change.before().stockQuantity()).toList());
+        assertEquals(List.of(5, 3), changes.stream().map(change -> change.after().stockQuantity()).toList());
+        assertEquals(3, instrumentRepository.findById(id).orElseThrow().getStockQuantity());
+    }
+}
@@ -0,0 +1,29 @@
+package com.harmonia.store;
+
+import com.harmonia.store.service.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KeysetCursorTest {
+
+    @Test
+    public void testCursorRoundTripKeepsValueTypes() {
+        KeysetCursor price = new KeysetCursor("price", Sort.Direction.DESC, new BigDecimal("1299.99"), 42L);
+        assertEquals(price, KeysetCursor.decode(price.encode()));
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123000000);
+        KeysetCursor created = new KeysetCursor("createdAt", Sort.Direction.ASC, createdAt, 7L);
+        assertEquals(created, KeysetCursor.decode(created.encode()));
+    }
+
+    @Test
+    public void testTamperedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not-a-cursor"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.RedisCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RedisCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        breaker = new RedisCircuitBreaker(2, Duration.ofSeconds(1), OPEN_DURATION);
+    }
+
+    @Test
+    public void testProbeRecoversBeforeItsOwnCall() throws Exception {
+        breaker.addRecoveryListener(() -> calls.add("clear stale caches"));
+        trip();
+        assertEquals("fallback", breaker.execute(() -> call("bypassed"), () -> "fallback"));
+        assertEquals(List.of(), calls);
+
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        assertEquals("read", breaker.execute(() -> call("read"), () -> "fallback"));
+
+        // The probe's read must not see what the outage left stale
+        assertEquals("clear stale caches", calls.get(0));
+        assertEquals("read", calls.get(1));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testFailedRecoveryKeepsBreakerOpen() throws Exception {
+        breaker.addRecoveryListener(() -> {
+            throw new IllegalStateException("Redis still down");
+        });
+        trip();
+
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        assertEquals("fallback", breaker.execute(() -> call("read"), () -> "fallback"));
+
+        assertEquals(List.of(), calls);
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("IllegalStateException: Redis still down", breaker.getStatistics().lastFailure());
+    }
+
+    private void trip() {
+        for (int i = 0; i < 2; i++) {
+            breaker.execute(() -> {
+                throw new IllegalStateException("Connection refused");
+            }, () -> null);
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private String call(String name) {
+        calls.add(name);
+        return name;
+    }
+}
@@ -0,0 +1,159 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CircuitBreakerStatistics;
+import com.harmonia.store.cache.RedisCircuitBreaker;
+import com.harmonia.store.cache.TwoLevelCache;
+import com.harmonia.store.cache.TwoLevelCacheManager;
+import com.harmonia.store.config.CacheConfig;
+import com.harmonia.store.config.CacheWarmupProperties;
+import com.harmonia.store.config.LocalCacheProperties;
+import com.harmonia.store.config.RedisCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stops a real Redis server while threads are reading through the two-level
+ * cache, then starts it again. Every read must keep returning the loaded
+ * value, and once the breaker is open reads must stop waiting for Redis
+ * timeouts.
+ */
+public class RedisOutageFallbackTest {
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofMillis(300);
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        connectionFactory.destroy();
+        if (redis.isActive()) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    public void testReadsDegradeToLoaderAndRecover() throws Exception {
+        int port = freePort();
+        redis = new RedisServer(port);
+        redis.start();
+        TwoLevelCacheManager cacheManager = createCacheManager(port);
+        RedisCircuitBreaker breaker = cacheManager.getCircuitBreaker();
+        TwoLevelCache cache = (TwoLevelCache) cacheManager.getCache("instruments");
+        assertNotNull(cache);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong readsWhileOpen = new AtomicLong();
+        AtomicLong slowReadsWhileOpen = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            readers.add(executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    String key = "key" + (offset + reads) % 50;
+                    boolean open = breaker.getState() == RedisCircuitBreaker.State.OPEN;
+                    long start = System.nanoTime();
+                    assertEquals("value of " + key, cache.get(key, () -> "value of " + key));
+                    if (open) {
+                        readsWhileOpen.incrementAndGet();
+                        // Only the periodic recovery probes may wait for Redis
+                        if (System.nanoTime() - start > COMMAND_TIMEOUT.toNanos() / 2) {
+                            slowReadsWhileOpen.incrementAndGet();
+                        }
+                    }
+                    if (reads % 10 == 0) {
+                        cache.evict(key);
+                    }
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+
+        CircuitBreakerStatistics outage;
+        try {
+            Thread.sleep(500);
+            redis.stop();
+            awaitState(breaker, RedisCircuitBreaker.State.OPEN);
+            Thread.sleep(1000);
+            outage = breaker.getStatistics();
+
+            redis = new RedisServer(port);
+            redis.start();
+            awaitState(breaker, RedisCircuitBreaker.State.CLOSED);
+            running.set(false);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(10, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            // Stop the readers even when an assertion above failed
+            running.set(false);
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, outage.trips());
+        assertTrue(outage.bypassed() > 0, "bypassed " + outage.bypassed());
+        assertTrue(slowReadsWhileOpen.get() * 20 < readsWhileOpen.get(),
+                slowReadsWhileOpen.get() + " of " + readsWhileOpen.get() + " reads waited for Redis while open");
+        // Writes reach Redis again after recovery
+        cache.put("after", "recovered");
+        assertNotNull(cache.getRemote().get("after"));
+    }
+
+    private TwoLevelCacheManager createCacheManager(int port) {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port),
+                LettuceClientConfiguration.builder().commandTimeout(COMMAND_TIMEOUT).build());
+        connectionFactory.afterPropertiesSet();
+
+        LocalCacheProperties localCacheProperties = new LocalCacheProperties();
+        // Short-lived L1 entries so the readers keep going to Redis
+        localCacheProperties.getDefaults().setTtl(Duration.ofMillis(20));
+        RedisCacheProperties redisCacheProperties = new RedisCacheProperties();
+        redisCacheProperties.getCircuitBreaker().setSlowCallThreshold(Duration.ofMillis(150));
+        redisCacheProperties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(500));
+
+        CacheConfig config = new CacheConfig();
+        RedisTemplate<String, Object> redisTemplate = config.redisTemplate(connectionFactory);
+        return config.cacheManager(connectionFactory, redisTemplate, localCacheProperties, redisCacheProperties,
+                new CacheWarmupProperties(), config.redisCircuitBreaker(redisCacheProperties));
+    }
+
+    private static void awaitState(RedisCircuitBreaker breaker, RedisCircuitBreaker.State state)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (breaker.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, "breaker still " + breaker.getState() + ", expected " + state);
+            Thread.sleep(20);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
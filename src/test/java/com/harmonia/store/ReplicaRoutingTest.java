@@ -0,0 +1,209 @@
+package com.harmonia.store;
+
+import com.harmonia.store.config.DataSourceRoutingConfig;
+import com.harmonia.store.config.DataSourceRoutingProperties;
+import com.harmonia.store.datasource.ReplicaLagMonitor;
+import com.harmonia.store.datasource.ReplicaRoutingDataSource;
+import com.harmonia.store.model.ReplicationHeartbeat;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Routing between two H2 databases standing in for a primary and its
+ * replica; replication is simulated by copying the heartbeat row
+ */
+public class ReplicaRoutingTest {
+
+    private String primaryUrl;
+    private String replicaUrl;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor monitor;
+    private DataSource routing;
+    private JdbcTemplate routed;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        primaryUrl = createDatabase("primary");
+        replicaUrl = createDatabase("replica");
+        DataSource primaryDataSource = new DriverManagerDataSource(primaryUrl, "sa", "");
+        DataSource replicaDataSource = new DriverManagerDataSource(replicaUrl, "sa", "");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        monitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, Duration.ofSeconds(5));
+
+        routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, monitor));
+        routed = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    public void testReadOnlyTransactionsUseTheReplicaOnceItCaughtUp() {
+        // Nothing has reached the replica yet
+        monitor.heartbeat();
+        assertEquals("primary", readOnly.execute(status -> database()));
+
+        replicate();
+        monitor.check();
+        assertEquals("replica", readOnly.execute(status -> database()));
+        assertEquals("primary", readWrite.execute(status -> database()));
+        assertEquals("primary", database());
+    }
+
+    @Test
+    public void testReadsStayOnThePrimaryAfterAWriteUntilItIsReplicated() {
+        monitor.heartbeat();
+        replicate();
+        monitor.check();
+
+        readWrite.executeWithoutResult(status -> routed.update("UPDATE marker SET writes = writes + 1"));
+        assertEquals("primary", readOnly.execute(status -> database()));
+        assertEquals(Integer.valueOf(1),
+                readOnly.execute(status -> routed.queryForObject("SELECT writes FROM marker", Integer.class)));
+
+        monitor.heartbeat();
+        replicate();
+        monitor.check();
+        assertEquals("replica", readOnly.execute(status -> database()));
+    }
+
+    @Test
+    public void testLaggingOrBrokenReplicaFallsBackToThePrimary() {
+        monitor.heartbeat();
+        replicate();
+        monitor.check();
+        replica.update("UPDATE replication_heartbeat SET beat_at = beat_at - 10000");
+        monitor.check();
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals("primary", readOnly.execute(status -> database()));
+
+        replica.update("DROP TABLE replication_heartbeat");
+        monitor.check();
+        assertEquals("primary", readOnly.execute(status -> database()));
+    }
+
+    @Test
+    public void testJpaReadOnlyTransactionsUseTheReplica() {
+        monitor.heartbeat();
+        replicate();
+        monitor.check();
+
+        // Routed the way the application does it, with Hibernate marking the transaction read-only
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(routing);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan(ReplicationHeartbeat.class.getPackageName());
+        factory.afterPropertiesSet();
+        try {
+            EntityManagerFactory entityManagerFactory = factory.getObject();
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+            JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            TransactionTemplate jpaReadOnly = new TransactionTemplate(transactionManager);
+            jpaReadOnly.setReadOnly(true);
+            TransactionTemplate jpaReadWrite = new TransactionTemplate(transactionManager);
+
+            assertEquals("replica", jpaReadOnly.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM marker").getSingleResult()));
+            assertEquals("primary", jpaReadWrite.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM marker").getSingleResult()));
+
+            jpaReadWrite.executeWithoutResult(status ->
+                    entityManager.createNativeQuery("UPDATE marker SET writes = writes + 1").executeUpdate());
+            assertEquals("primary", jpaReadOnly.execute(status ->
+                    entityManager.createNativeQuery("SELECT name FROM marker").getSingleResult()));
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void testHeartbeatCommitsWithAutoCommitOff() {
+        try (HikariDataSource primaryPool = pool(primaryUrl); HikariDataSource replicaPool = pool(replicaUrl)) {
+            primaryPool.setAutoCommit(false);
+            ReplicaLagMonitor pooled = new ReplicaLagMonitor(primaryPool, replicaPool, Duration.ofSeconds(5));
+
+            pooled.heartbeat();
+            pooled.heartbeat();
+
+            // Read on another connection, the pool rolls back what a returned connection left uncommitted
+            assertEquals(Integer.valueOf(1),
+                    primary.queryForObject("SELECT COUNT(*) FROM replication_heartbeat", Integer.class));
+        }
+    }
+
+    @Test
+    public void testReplicaPoolTakesThePrimaryPoolSettings() {
+        DataSourceRoutingProperties properties = new DataSourceRoutingProperties();
+        properties.getReplica().setUrl(replicaUrl);
+        try (HikariDataSource primaryPool = pool(primaryUrl)) {
+            primaryPool.setAutoCommit(false);
+            primaryPool.setConnectionTimeout(5000);
+            primaryPool.setMaximumPoolSize(20);
+
+            try (HikariDataSource replicaPool = new DataSourceRoutingConfig().replicaDataSource(primaryPool, properties)) {
+                assertEquals(replicaUrl, replicaPool.getJdbcUrl());
+                assertEquals("sa", replicaPool.getUsername());
+                assertFalse(replicaPool.isAutoCommit());
+                assertEquals(5000, replicaPool.getConnectionTimeout());
+                assertEquals(20, replicaPool.getMaximumPoolSize());
+            }
+
+            properties.getReplica().setMaximumPoolSize(8);
+            try (HikariDataSource replicaPool = new DataSourceRoutingConfig().replicaDataSource(primaryPool, properties)) {
+                assertEquals(8, replicaPool.getMaximumPoolSize());
+                assertEquals("replica", replicaPool.getPoolName());
+            }
+        }
+    }
+
+    private String database() {
+        return routed.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private void replicate() {
+        Long beat = primary.queryForObject("SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class);
+        replica.update("MERGE INTO replication_heartbeat KEY (id) VALUES (1, ?)", beat);
+    }
+
+    private static String createDatabase(String name) {
+        String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20), writes INT)");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?, 0)", name);
+        return url;
+    }
+
+    private HikariDataSource pool(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        return dataSource;
+    }
+}
@@ -0,0 +1,132 @@
+package com.harmonia.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.harmonia.store.cache.ResponseBodyCache;
+import com.harmonia.store.config.HttpCachingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseBodyCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseBodyCache cache =
+            new ResponseBodyCache(objectMapper, new HttpCachingProperties.ResponseCache());
+
+    @Test
+    public void testBodyIsReusedUntilVersionChanges() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        ResponseEntity<byte[]> first = cache.get("all", "v1", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        ResponseEntity<byte[]> second = cache.get("all", "v1", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(List.of("guitar 1"), objectMapper.readValue(second.getBody(), List.class));
+
+        ResponseEntity<byte[]> changed = cache.get("all", "v2", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        assertEquals(List.of("guitar 2"), objectMapper.readValue(changed.getBody(), List.class));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGzipOnlyWhenAcceptedAndLargeEnough() throws IOException {
+        List<String> large = Collections.nCopies(200, "Fender Stratocaster");
+        byte[] json = objectMapper.writeValueAsBytes(large);
+
+        ResponseEntity<byte[]> compressed = cache.get("large", "v1", "br, gzip;q=0.8", () -> large);
+        assertEquals("gzip", compressed.getHeaders().getFirst("Content-Encoding"));
+        assertTrue(compressed.getBody().length < json.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+
+        ResponseEntity<byte[]> refused = cache.get("large", "v1", "gzip;q=0", () -> large);
+        assertNull(refused.getHeaders().getFirst("Content-Encoding"));
+        assertArrayEquals(json, refused.getBody());
+        // Below the threshold the JSON is sent as is
+        assertNull(cache.get("small", "v1", "gzip", () -> List.of("Fender"))
+                .getHeaders().getFirst("Content-Encoding"));
+        assertFalse(ResponseBodyCache.acceptsGzip("identity"));
+    }
+
+    @Test
+    public void testExplicitGzipWinsOverWildcard() {
+        assertFalse(ResponseBodyCache.acceptsGzip("*, gzip;q=0"));
+        assertFalse(ResponseBodyCache.acceptsGzip("gzip; q=0.0, *"));
+        assertTrue(ResponseBodyCache.acceptsGzip("*;q=0, gzip;q=0.5"));
+        assertTrue(ResponseBodyCache.acceptsGzip("br, *;q=0.1"));
+        assertFalse(ResponseBodyCache.acceptsGzip("br, *;q=0"));
+        assertFalse(ResponseBodyCache.acceptsGzip("gzip;q=high"));
+        assertFalse(ResponseBodyCache.acceptsGzip("deflate"));
+    }
+
+    @Test
+    public void testBodiesExpireWithoutAVersionChange() throws Exception {
+        HttpCachingProperties.ResponseCache properties = new HttpCachingProperties.ResponseCache();
+        properties.setTtl(Duration.ofMillis(50));
+        ResponseBodyCache expiring = new ResponseBodyCache(objectMapper, properties);
+        AtomicInteger loads = new AtomicInteger();
+
+        expiring.get("all", "v1", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        ResponseEntity<byte[]> cached = expiring.get("all", "v1", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+        // Vary is the interceptor's, see ConditionalGetInterceptor
+        assertNull(cached.getHeaders().getFirst("Vary"));
+
+        Thread.sleep(150);
+        ResponseEntity<byte[]> rebuilt = expiring.get("all", "v1", null, () -> List.of("guitar " + loads.incrementAndGet()));
+        assertEquals(List.of("guitar 2"), objectMapper.readValue(rebuilt.getBody(), List.class));
+    }
+
+    @Test
+    public void testLoaderRunsWithoutTheCacheLock() throws IOException {
+        // A loader that reaches the same key again, as a nested request could
+        ResponseEntity<byte[]> outer = cache.get("all", "v1", null, () -> {
+            cache.get("all", "v2", null, () -> List.of("inner"));
+            return List.of("outer");
+        });
+        assertEquals(List.of("outer"), objectMapper.readValue(outer.getBody(), List.class));
+    }
+
+    @Test
+    public void testConcurrentRequestsSerializeOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<byte[]>> bodies = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bodies.add(executor.submit(() -> {
+                start.await();
+                return cache.get("all", "v1", null, () -> {
+                    loads.incrementAndGet();
+                    return List.of("catalog");
+                }).getBody();
+            }));
+        }
+        start.countDown();
+        byte[] body = bodies.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<byte[]> other : bodies) {
+            assertSame(body, other.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,100 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.controller.ReviewController;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.ReviewSummary;
+import com.harmonia.store.model.Review;
+import com.harmonia.store.service.CatalogVersions;
+import com.harmonia.store.service.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Request binding and response shape of the review endpoints, with the
+ * service mocked
+ */
+@WebMvcTest(ReviewController.class)
+@Import(CatalogVersions.class)
+public class ReviewControllerTest {
+
+    private static final String COMMENT = "Plays and sounds as described";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReviewService reviewService;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @Test
+    public void testReviewsAreListedWithoutAuthorEmail() throws Exception {
+        when(reviewService.getReviews(7L, 2, "abc")).thenReturn(Optional.of(new CursorPage<>(
+                List.of(new ReviewSummary(3L, COMMENT, 5, "Ana", LocalDateTime.now(), null)), 1, true, "def")));
+
+        mockMvc.perform(get("/api/v1/instruments/7/reviews").param("size", "2").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].authorName").value("Ana"))
+                .andExpect(jsonPath("$.content[0].authorEmail").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    public void testListingErrors() throws Exception {
+        when(reviewService.getReviews(eq(7L), eq(500), any())).thenThrow(new IllegalArgumentException("Page size"));
+        when(reviewService.getReviews(eq(8L), eq(10), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/instruments/7/reviews").param("size", "500"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/instruments/8/reviews"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testAddedReviewIsReturnedWithoutAuthorEmail() throws Exception {
+        Review saved = new Review(COMMENT, 4, "Ana", null);
+        saved.setId(3L);
+        saved.setAuthorEmail("ana@example.com");
+        when(reviewService.addReview(eq(7L), any())).thenReturn(Optional.of(saved));
+
+        mockMvc.perform(post("/api/v1/instruments/7/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"comment":"%s","rating":4,"authorName":"Ana","authorEmail":"ana@example.com"}
+                                """.formatted(COMMENT)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.authorEmail").doesNotExist());
+    }
+
+    @Test
+    public void testInvalidReviewIsRejected() throws Exception {
+        mockMvc.perform(post("/api/v1/instruments/7/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"comment":"%s","rating":6,"authorName":"Ana"}
+                                """.formatted(COMMENT)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reviewService);
+    }
+}
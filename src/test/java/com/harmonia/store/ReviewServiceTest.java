@@ -0,0 +1,138 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.dto.CursorPage;
+import com.harmonia.store.dto.RatingSummary;
+import com.harmonia.store.dto.ReviewSummary;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.model.Review;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Rating summaries against a real database, without a test transaction so
+ * every call commits
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(ReviewService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReviewServiceTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @Test
+    public void testConcurrentFirstReviewsKeepTheSummaryExact() throws Exception {
+        Long instrumentId = createInstrument();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<Future<Review>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int rating = i % 5 + 1;
+            results.add(executor.submit(() -> {
+                start.await();
+                return reviewService.addReview(instrumentId, review(rating)).orElseThrow();
+            }));
+        }
+        start.countDown();
+        List<Review> reviews = new ArrayList<>();
+        for (Future<Review> result : results) {
+            reviews.add(result.get());
+        }
+        executor.shutdown();
+
+        RatingSummary summary = reviewService.getRatingSummary(instrumentId).orElseThrow();
+        assertEquals(20, summary.reviewCount());
+        assertEquals(3.0, summary.averageRating());
+        assertEquals(Map.of(1, 4L, 2, 4L, 3, 4L, 4, 4L, 5, 4L), summary.reviewsByRating());
+
+        // A five becomes a one, a one is deleted
+        Review five = reviews.stream().filter(review -> review.getRating() == 5).findFirst().orElseThrow();
+        Review one = reviews.stream().filter(review -> review.getRating() == 1).findFirst().orElseThrow();
+        reviewService.updateReview(instrumentId, five.getId(), review(1));
+        reviewService.deleteReview(instrumentId, one.getId());
+
+        summary = reviewService.getRatingSummary(instrumentId).orElseThrow();
+        assertEquals(19, summary.reviewCount());
+        assertEquals(Map.of(1, 4L, 2, 4L, 3, 4L, 4, 4L, 5, 3L), summary.reviewsByRating());
+    }
+
+    @Test
+    public void testReviewsArePagedNewestFirst() {
+        Long instrumentId = createInstrument();
+        assertNull(reviewService.getRatingSummary(instrumentId).orElseThrow().averageRating());
+        for (int i = 0; i < 5; i++) {
+            reviewService.addReview(instrumentId, review(4));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ReviewSummary> page = reviewService.getReviews(instrumentId, 2, cursor).orElseThrow();
+            page.content().forEach(review -> ids.add(review.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(5, ids.size());
+        assertEquals(ids.stream().sorted((a, b) -> Long.compare(b, a)).toList(), ids);
+        assertFalse(reviewService.getReviews(-1L, 2, null).isPresent());
+    }
+
+    @Test
+    public void testCachedSummaryIsEvictedAfterCommit() {
+        Long instrumentId = createInstrument();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reviewService.addReview(instrumentId, review(5));
+            // A read here would load the old counts, evicting now would not stop it being cached
+            verify(cacheInvalidator, never()).evict(eq("ratings"), any());
+        });
+        verify(cacheInvalidator).evict("ratings", List.of(instrumentId));
+    }
+
+    private Long createInstrument() {
+        Instrument instrument = new Instrument("Stratocaster", "Fender", new BigDecimal("1299.99"),
+                InstrumentType.GUITAR, Condition.NEW);
+        return instrumentRepository.save(instrument).getId();
+    }
+
+    private static Review review(int rating) {
+        return new Review("Plays and sounds as described", rating, "Test Author", null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheInvalidator;
+import com.harmonia.store.cache.SearchResultCache;
+import com.harmonia.store.config.SearchConfig;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Customer;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.search.TrigramIndex;
+import com.harmonia.store.service.CatalogStatisticsService;
+import com.harmonia.store.service.CustomerService;
+import com.harmonia.store.service.CustomerUpdateBuffer;
+import com.harmonia.store.service.InstrumentCatalog;
+import com.harmonia.store.service.InstrumentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The trigram indexes only see committed writes, without a test
+ * transaction so every call commits or rolls back for real
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({InstrumentService.class, CustomerService.class, SearchConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SearchIndexAfterCommitTest {
+
+    @Autowired
+    private InstrumentService instrumentService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    @Qualifier("instrumentSearchIndex")
+    private TrigramIndex instrumentSearchIndex;
+
+    @Autowired
+    @Qualifier("customerSearchIndex")
+    private TrigramIndex customerSearchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CacheInvalidator cacheInvalidator;
+
+    @MockBean
+    private CatalogStatisticsService statisticsService;
+
+    @MockBean
+    private InstrumentCatalog instrumentCatalog;
+
+    @MockBean
+    private SearchResultCache<?> searchCache;
+
+    @MockBean
+    private CustomerUpdateBuffer updateBuffer;
+
+    @Test
+    public void testRolledBackInstrumentWritesAreNotIndexed() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            instrumentService.addInstrument(instrument("Telecaster"));
+            assertTrue(instrumentSearchIndex.search("Telecaster", 10).isEmpty());
+            status.setRollbackOnly();
+        });
+        assertTrue(instrumentSearchIndex.search("Telecaster", 10).isEmpty());
+
+        Instrument saved = instrumentService.addInstrument(instrument("Stratocaster"));
+        assertEquals(List.of(saved.getId()), instrumentSearchIndex.search("Stratocaster", 10));
+
+        transaction.executeWithoutResult(status -> {
+            instrumentService.deleteInstrument(saved.getId());
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(saved.getId()), instrumentSearchIndex.search("Stratocaster", 10));
+
+        instrumentService.deleteInstrument(saved.getId());
+        assertTrue(instrumentSearchIndex.search("Stratocaster", 10).isEmpty());
+    }
+
+    @Test
+    public void testRolledBackCustomerRenameKeepsTheIndexedName() {
+        Customer saved = customerService.addCustomer(new Customer("Ada", "Lovelace", "ada@example.com"));
+        assertEquals(List.of(saved.getId()), customerSearchIndex.search("Lovelace", 10));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Customer renamed = customerService.getCustomerById(saved.getId()).orElseThrow();
+            renamed.setLastName("Hopper");
+            customerService.updateCustomer(renamed);
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(saved.getId()), customerSearchIndex.search("Lovelace", 10));
+        assertTrue(customerSearchIndex.search("Hopper", 10).isEmpty());
+
+        Customer renamed = customerService.getCustomerById(saved.getId()).orElseThrow();
+        renamed.setLastName("Hopper");
+        customerService.updateCustomer(renamed);
+        assertEquals(List.of(saved.getId()), customerSearchIndex.search("Hopper", 10));
+        assertTrue(customerSearchIndex.search("Lovelace", 10).isEmpty());
+    }
+
+    private static Instrument instrument(String name) {
+        return new Instrument(name, "Fender", new BigDecimal("1299.99"), InstrumentType.GUITAR, Condition.NEW);
+    }
+}
@@ -0,0 +1,62 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.SearchResultCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchResultCacheTest {
+
+    @Test
+    public void testConcurrentIdenticalSearchesLoadOnce() throws Exception {
+        SearchResultCache<String> cache = new SearchResultCache<>(1000, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String query = i % 2 == 0 ? "  Guitar " : "GUITAR";
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get(query, key -> {
+                    loads.incrementAndGet();
+                    sleep(100);
+                    return List.of(key);
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<List<String>> result : results) {
+            assertEquals(List.of("guitar"), result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidateIfDropsMatchingQueries() {
+        SearchResultCache<String> cache = new SearchResultCache<>(1000, Duration.ofMinutes(1));
+        cache.get("les paul", List::of);
+        cache.get("piano", List::of);
+        cache.invalidateIf("gibson les paul"::contains);
+        assertEquals(1, cache.size());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.harmonia.store;
+
+import com.harmonia.store.config.StartupConfig;
+import com.harmonia.store.service.CacheWarmupService;
+import com.harmonia.store.service.DataInitializationService;
+import com.harmonia.store.service.StartupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.availability.AvailabilityHealthContributorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.availability.AvailabilityProbesAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthContributorAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthEndpointAutoConfiguration;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.availability.ApplicationAvailabilityAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The readiness group as configured in application.yml, with a warm-up that
+ * only finishes when the test lets it
+ */
+@SpringBootTest(classes = {StartupService.class, StartupConfig.class, StartupReadinessTest.SlowWarmup.class},
+        properties = "app.sample-data.enabled=false")
+@ImportAutoConfiguration({ApplicationAvailabilityAutoConfiguration.class, EndpointAutoConfiguration.class,
+        HealthContributorAutoConfiguration.class, HealthEndpointAutoConfiguration.class,
+        AvailabilityHealthContributorAutoConfiguration.class, AvailabilityProbesAutoConfiguration.class})
+public class StartupReadinessTest {
+
+    private static final CountDownLatch WARMUP_STARTED = new CountDownLatch(1);
+    private static final CountDownLatch WARMUP_RELEASED = new CountDownLatch(1);
+
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    @Autowired
+    private StartupService startupService;
+
+    @MockBean
+    private DataInitializationService dataInitializationService;
+
+    @Test
+    public void testNotReadyUntilWarmupFinishes() throws Exception {
+        // The context is up and the warm-up is running on the startup thread
+        assertTrue(WARMUP_STARTED.await(10, TimeUnit.SECONDS));
+        assertEquals(Status.OUT_OF_SERVICE, healthEndpoint.healthForPath("readiness").getStatus());
+        assertEquals(Status.UP, healthEndpoint.healthForPath("liveness").getStatus());
+        assertFalse(startupService.isFinished());
+        assertFalse(startupService.getReport().containsKey("bootToReadyMs"));
+
+        WARMUP_RELEASED.countDown();
+        assertTrue(startupService.awaitFinished(Duration.ofSeconds(10)));
+
+        assertEquals(Status.UP, healthEndpoint.healthForPath("readiness").getStatus());
+        Map<String, Object> report = startupService.getReport();
+        assertEquals(new CacheWarmupService.Result(5, 0, 0), report.get("cacheWarmup"));
+        long contextStartedMs = (Long) report.get("contextStartedMs");
+        long bootToReadyMs = (Long) report.get("bootToReadyMs");
+        // Measured from JVM start, so it covers the context startup and the blocked warm-up
+        assertTrue(bootToReadyMs >= contextStartedMs + (Long) report.get("cacheWarmupMs"), report.toString());
+    }
+
+    /**
+     * Registered as a ready-made singleton, so the mock is stubbed before the
+     * startup thread calls it and its own dependencies are not injected
+     */
+    @TestConfiguration
+    static class SlowWarmup {
+
+        @Bean
+        public static BeanFactoryPostProcessor slowCacheWarmup() {
+            return beanFactory -> {
+                CacheWarmupService warmup = mock(CacheWarmupService.class);
+                try {
+                    when(warmup.warmUp()).thenAnswer(invocation -> {
+                        WARMUP_STARTED.countDown();
+                        WARMUP_RELEASED.await();
+                        return new CacheWarmupService.Result(5, 0, 0);
+                    });
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                beanFactory.registerSingleton("cacheWarmupService", warmup);
+            };
+        }
+    }
+}
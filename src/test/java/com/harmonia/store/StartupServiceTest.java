@@ -0,0 +1,53 @@
+package com.harmonia.store;
+
+import com.harmonia.store.service.CacheWarmupService;
+import com.harmonia.store.service.DataInitializationService;
+import com.harmonia.store.service.StartupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The background startup tasks with their services mocked
+ */
+@ExtendWith(MockitoExtension.class)
+public class StartupServiceTest {
+
+    @Mock
+    private DataInitializationService dataInitializationService;
+
+    @Mock
+    private CacheWarmupService cacheWarmupService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StartupService startupService;
+
+    @Test
+    public void testReadyEvenWhenTheWarmupThrowsAnError() throws Exception {
+        when(cacheWarmupService.warmUp()).thenThrow(new OutOfMemoryError("Java heap space"));
+        ApplicationReadyEvent event = mock(ApplicationReadyEvent.class);
+        when(event.getTimeTaken()).thenReturn(Duration.ofSeconds(2));
+
+        startupService.onApplicationReady(event);
+
+        assertTrue(startupService.awaitFinished(Duration.ofSeconds(10)));
+        Map<String, Object> report = startupService.getReport();
+        assertEquals("OutOfMemoryError: Java heap space", report.get("failure"));
+        assertTrue(report.containsKey("bootToReadyMs"));
+    }
+}
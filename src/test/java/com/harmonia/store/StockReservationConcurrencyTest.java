@@ -0,0 +1,163 @@
+package com.harmonia.store;
+
+import com.harmonia.store.exception.InsufficientStockException;
+import com.harmonia.store.exception.InvalidReservationStateException;
+import com.harmonia.store.model.Condition;
+import com.harmonia.store.model.Instrument;
+import com.harmonia.store.model.InstrumentType;
+import com.harmonia.store.model.ReservationStatus;
+import com.harmonia.store.model.StockReservation;
+import com.harmonia.store.repository.InstrumentRepository;
+import com.harmonia.store.service.InstrumentService;
+import com.harmonia.store.service.StockReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers the reservation engine from hundreds of threads against a real
+ * database. Runs without a test transaction so every call commits.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(StockReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockReservationConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private InstrumentRepository instrumentRepository;
+
+    @MockBean
+    private InstrumentService instrumentService;
+
+    @Test
+    public void testConcurrentReservationsNeverOversell() throws Exception {
+        Long instrumentId = createInstrument(STOCK);
+        Queue<StockReservation> reserved = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(THREADS, () -> {
+            try {
+                reserved.add(reservationService.reserve(instrumentId, 1).orElseThrow());
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(STOCK, reserved.size());
+        assertEquals(THREADS - STOCK, rejected.get());
+        assertEquals(0, stockOf(instrumentId));
+
+        // Release half and commit the rest, each from two racing threads:
+        // only one of each pair may win
+        List<StockReservation> reservations = List.copyOf(reserved);
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        runConcurrently(reservations.size() * 2, () -> {
+            int index = next.getAndIncrement() / 2;
+            Long id = reservations.get(index).getId();
+            try {
+                if (index % 2 == 0) {
+                    reservationService.release(id).orElseThrow();
+                } else {
+                    reservationService.commit(id).orElseThrow();
+                }
+            } catch (InvalidReservationStateException e) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        assertEquals(reservations.size(), conflicts.get());
+        assertEquals(STOCK / 2, stockOf(instrumentId));
+        assertEquals(ReservationStatus.RELEASED, reservationService.getReservationById(reservations.get(0).getId())
+                .orElseThrow().getStatus());
+        assertEquals(ReservationStatus.COMMITTED, reservationService.getReservationById(reservations.get(1).getId())
+                .orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testConcurrentRestocksAreNotLost() throws Exception {
+        Long instrumentId = createInstrument(0);
+
+        runConcurrently(THREADS, () -> instrumentRepository.incrementStock(instrumentId, 2, LocalDateTime.now()));
+
+        assertEquals(THREADS * 2, stockOf(instrumentId));
+    }
+
+    @Test
+    public void testReserveRejectsInvalidQuantity() {
+        Long instrumentId = createInstrument(5);
+        assertThrows(IllegalArgumentException.class, () -> reservationService.reserve(instrumentId, 0));
+        assertThrows(InsufficientStockException.class, () -> reservationService.reserve(instrumentId, 6));
+        assertEquals(5, stockOf(instrumentId));
+    }
+
+    @Test
+    public void testMissingInstrumentOrReservationIsEmpty() {
+        assertTrue(reservationService.reserve(-1L, 1).isEmpty());
+        assertTrue(reservationService.commit(-1L).isEmpty());
+        assertTrue(reservationService.release(-1L).isEmpty());
+    }
+
+    private Long createInstrument(int stock) {
+        Instrument instrument = new Instrument("Stratocaster", "Fender", new BigDecimal("1299.99"),
+                InstrumentType.GUITAR, Condition.NEW);
+        instrument.setStockQuantity(stock);
+        return instrumentRepository.save(instrument).getId();
+    }
+
+    private int stockOf(Long instrumentId) {
+        return instrumentRepository.findById(instrumentId).orElseThrow().getStockQuantity();
+    }
+
+    /**
+     * Start all tasks behind a latch and fail if any of them throws or they
+     * do not all finish in time
+     */
+    private void runConcurrently(int tasks, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
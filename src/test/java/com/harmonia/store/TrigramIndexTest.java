@@ -0,0 +1,50 @@
+package com.harmonia.store;
+
+import com.harmonia.store.search.TrigramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new TrigramIndex(3.0, 2.0, 1.0);
+        index.index(1L, "Fender Stratocaster", "Fender", "Classic electric guitar with versatile sound");
+        index.index(2L, "Gibson Les Paul", "Gibson", "Electric guitar with warm tone and exceptional sustain");
+        index.index(3L, "1959 Gibson Les Paul", "Gibson", "Vintage 1959 guitar, collector's piece");
+        index.index(4L, "Roland FP-30X", "Roland", "Digital piano with 88 keys and realistic sound");
+    }
+
+    @Test
+    public void testSubstringSearchIsCaseInsensitiveAndRanked() {
+        assertEquals(List.of(2L, 3L), index.search("les paul", 10));
+        assertEquals(List.of(2L, 3L), index.search("GIBSON", 10));
+        // Name match ranks above description matches
+        assertEquals(1L, index.search("strat", 10).get(0));
+        assertEquals(List.of(1L, 4L), index.search("sound", 10));
+    }
+
+    @Test
+    public void testShortQueriesAndMisses() {
+        assertEquals(List.of(4L), index.search("fp", 10));
+        assertTrue(index.search("ukulele", 10).isEmpty());
+        assertEquals(1, index.search("guitar", 1).size());
+    }
+
+    @Test
+    public void testReindexAndRemove() {
+        index.index(4L, "Yamaha P-45", "Yamaha", "Compact digital piano");
+        assertTrue(index.search("roland", 10).isEmpty());
+        assertEquals(List.of(4L), index.search("yamaha", 10));
+        index.remove(2L);
+        assertEquals(List.of(3L), index.search("les paul", 10));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,294 @@
+package com.harmonia.store;
+
+import com.harmonia.store.cache.CacheStatistics;
+import com.harmonia.store.cache.RedisCircuitBreaker;
+import com.harmonia.store.cache.TwoLevelCache;
+import com.harmonia.store.cache.TwoLevelCacheManager;
+import com.harmonia.store.config.CacheConfig;
+import com.harmonia.store.config.LocalCacheProperties;
+import com.harmonia.store.config.RedisCacheProperties;
+import com.harmonia.store.model.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loading through the two-level cache against a real Redis server, with
+ * two cache managers standing in for two nodes
+ */
+public class TwoLevelCacheLoadingTest {
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redis = new RedisServer(port);
+        redis.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    public void testConcurrentMissesOnTwoNodesLoadOnce() throws Exception {
+        TwoLevelCache[] nodes = {createCache(Duration.ofMinutes(15)), createCache(Duration.ofMinutes(15))};
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            TwoLevelCache cache = nodes[i % 2];
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get("all", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(300);
+                    return "catalog";
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("catalog", result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testWaitersStopWhenLeaseHolderFindsNothing() throws Exception {
+        TwoLevelCache holder = createCache(Duration.ofMinutes(15));
+        TwoLevelCache waiter = createCache(Duration.ofMinutes(15));
+        CountDownLatch leased = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> missing = executor.submit(() -> holder.get(404L, () -> {
+                leased.countDown();
+                Thread.sleep(200);
+                return null;
+            }));
+            assertTrue(leased.await(10, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            assertNull(waiter.get(404L, () -> null));
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertNull(missing.get(10, TimeUnit.SECONDS));
+            // Released with the holder's miss, well before the 2s lease wait
+            assertTrue(waitedMillis < 1000, "waited " + waitedMillis + "ms");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHotKeyIsRefreshedBeforeItExpires() throws Exception {
+        TwoLevelCache cache = createCache(Duration.ofSeconds(1));
+        AtomicInteger loads = new AtomicInteger();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(3500);
+        while (System.nanoTime() < end) {
+            assertEquals("catalog", cache.get("all", () -> {
+                loads.incrementAndGet();
+                Thread.sleep(100);
+                return "catalog";
+            }));
+            Thread.sleep(5);
+        }
+
+        CacheStatistics statistics = cache.getStatistics();
+        // Only the first read missed, every later load was an early refresh
+        assertEquals(1, statistics.misses());
+        assertTrue(statistics.earlyRefreshes() >= 3, "early refreshes " + statistics.earlyRefreshes());
+        assertEquals(loads.get(), statistics.misses() + statistics.earlyRefreshes());
+    }
+
+    @Test
+    public void testRedisHitsUseTheConfiguredKeyPrefix() {
+        RedisCacheConfiguration prefixed = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(15))
+                .prefixCacheNameWith("store:");
+        TwoLevelCache writer = (TwoLevelCache) createCacheManager(prefixed).getCache("instruments");
+        TwoLevelCache reader = (TwoLevelCache) createCacheManager(prefixed).getCache("instruments");
+
+        writer.put(7L, "Stratocaster");
+        // Read with its TTL from the key RedisCache wrote, not loaded again
+        assertEquals("Stratocaster", reader.get(7L, () -> "loaded"));
+        assertEquals(1, reader.getStatistics().remoteHits());
+        assertEquals(0, reader.getStatistics().misses());
+    }
+
+    @Test
+    public void testRecentlyReadIdsAreSharedThroughRedis() throws Exception {
+        TwoLevelCacheManager writer = createCacheManager(Duration.ofMinutes(15));
+        writer.setRecentKeyLimit(2);
+        TwoLevelCache cache = (TwoLevelCache) writer.getCache("instruments");
+        for (long id = 1; id <= 3; id++) {
+            long value = id;
+            cache.get(id, () -> "instrument " + value);
+            Thread.sleep(2);
+        }
+        cache.get("all", () -> "catalog");
+        writer.flushRecentKeys();
+
+        TwoLevelCacheManager reader = createCacheManager(Duration.ofMinutes(15));
+        reader.setRecentKeyLimit(2);
+        // Most recent first, trimmed to the limit, non-ID keys not recorded
+        assertEquals(List.of(3L, 2L), reader.recentKeys("instruments"));
+    }
+
+    @Test
+    public void testMetersAreTaggedWithCacheAndLevel() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TwoLevelCacheManager manager = createCacheManager(Duration.ofMinutes(15));
+        manager.getCache("instruments").get("all", () -> "catalog");
+        manager.bindTo(registry);
+        // Created after binding
+        TwoLevelCache categories = (TwoLevelCache) manager.getCache("categories");
+        categories.get(1L, () -> "guitars");
+        categories.get(1L, () -> "guitars");
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "instruments", "result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "categories", "level", "local")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.loads").tag("cache", "categories").timer().count());
+        assertEquals(1, registry.get("cache.remote.reads").tag("cache", "categories").timer().count());
+    }
+
+    @Test
+    public void testValueCachedBeforeCommitIsEvictedAgain() {
+        TwoLevelCache cache = createCache(Duration.ofMinutes(15));
+        cache.put(1L, "before");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(1L);
+            // Another request reads the row before the write commits
+            assertEquals("before", cache.get(1L, () -> "before"));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("after", cache.get(1L, () -> "after"));
+    }
+
+    @Test
+    public void testCallersCannotChangeCachedValues() {
+        TwoLevelCacheManager manager = createCacheManager(Duration.ofMinutes(15));
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache("categories");
+        Category guitars = new Category();
+        guitars.setId(1L);
+        guitars.setName("Guitars");
+        cache.put(1L, guitars);
+
+        // Entities come out of L1 as fresh copies
+        Category read = cache.get(1L, Category.class);
+        read.setName("Changed");
+        guitars.setName("Changed too");
+        assertEquals("Guitars", cache.get(1L, Category.class).getName());
+
+        // Lists of immutable values are shared, but cannot be modified
+        cache.put("all", new ArrayList<>(List.of("Guitars", "Pianos")));
+        List<?> all = cache.get("all", List.class);
+        assertSame(all, cache.get("all", List.class));
+        assertThrows(UnsupportedOperationException.class, () -> all.remove(0));
+    }
+
+    @Test
+    public void testOnlyWellFormedJsonInvalidationsAreApplied() {
+        TwoLevelCacheManager manager = createCacheManager(Duration.ofMinutes(15));
+        List<String> cacheNames = new ArrayList<>();
+        List<Object> keys = new ArrayList<>();
+        manager.addInvalidationListener((cacheName, key) -> {
+            cacheNames.add(cacheName);
+            keys.add(key);
+        });
+        byte[] channel = "cache-invalidation".getBytes(StandardCharsets.UTF_8);
+
+        // Java serialization, broken JSON and unsupported keys are dropped
+        manager.onMessage(new DefaultMessage(channel, RedisSerializer.java().serialize(
+                new Object[]{"other-node", "instruments", 7L})), null);
+        manager.onMessage(new DefaultMessage(channel, "{\"origin\":".getBytes(StandardCharsets.UTF_8)), null);
+        manager.onMessage(new DefaultMessage(channel, json("{\"origin\":\"other-node\",\"cacheName\":\"instruments\","
+                + "\"key\":{\"@class\":\"java.net.URL\"}}")), null);
+        assertEquals(List.of(), cacheNames);
+
+        manager.onMessage(new DefaultMessage(channel, json(
+                "{\"origin\":\"other-node\",\"cacheName\":\"instruments\",\"key\":7}")), null);
+        manager.onMessage(new DefaultMessage(channel, json(
+                "{\"origin\":\"other-node\",\"cacheName\":\"customers\",\"key\":null}")), null);
+        assertEquals(List.of("instruments", "customers"), cacheNames);
+        // IDs come back as Long, like the keys the services cache under
+        assertEquals(Arrays.asList(7L, null), keys);
+    }
+
+    private static byte[] json(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private TwoLevelCache createCache(Duration redisTtl) {
+        return (TwoLevelCache) createCacheManager(redisTtl).getCache("instruments");
+    }
+
+    private TwoLevelCacheManager createCacheManager(Duration redisTtl) {
+        return createCacheManager(RedisCacheConfiguration.defaultCacheConfig().entryTtl(redisTtl));
+    }
+
+    private TwoLevelCacheManager createCacheManager(RedisCacheConfiguration redisCacheConfiguration) {
+        RedisCacheProperties redisCacheProperties = new RedisCacheProperties();
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                                CacheConfig.valueSerializer(redisCacheProperties.getDefaults()))))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        LocalCacheProperties localCacheProperties = new LocalCacheProperties();
+        // Short-lived L1 entries so reads keep going to Redis
+        localCacheProperties.getDefaults().setTtl(Duration.ofMillis(20));
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(5, Duration.ofSeconds(1), Duration.ofSeconds(10));
+        return new TwoLevelCacheManager(redisCacheManager, localCacheProperties,
+                redisCacheProperties.getLoading(), new CacheConfig().redisTemplate(connectionFactory), breaker);
+    }
+}